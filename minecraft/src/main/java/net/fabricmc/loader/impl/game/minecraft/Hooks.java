@@ -19,6 +19,7 @@ package net.fabricmc.loader.impl.game.minecraft;
 import java.io.File;
 
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.api.ConcurrentModInitializer;
 import net.fabricmc.api.DedicatedServerModInitializer;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.loader.impl.FabricLoaderImpl;
@@ -50,7 +51,9 @@ public final class Hooks {
 		FabricLoaderImpl loader = FabricLoaderImpl.INSTANCE;
 		loader.prepareModInit(runDir.toPath(), gameInstance);
 		loader.invokeEntrypoints("main", ModInitializer.class, ModInitializer::onInitialize);
+		loader.invokeConcurrentEntrypoints("concurrent", ConcurrentModInitializer.class, ConcurrentModInitializer::onInitializeConcurrently);
 		loader.invokeEntrypoints("client", ClientModInitializer.class, ClientModInitializer::onInitializeClient);
+		loader.finishModInit();
 	}
 
 	public static void startServer(File runDir, Object gameInstance) {
@@ -61,7 +64,9 @@ public final class Hooks {
 		FabricLoaderImpl loader = FabricLoaderImpl.INSTANCE;
 		loader.prepareModInit(runDir.toPath(), gameInstance);
 		loader.invokeEntrypoints("main", ModInitializer.class, ModInitializer::onInitialize);
+		loader.invokeConcurrentEntrypoints("concurrent", ConcurrentModInitializer.class, ConcurrentModInitializer::onInitializeConcurrently);
 		loader.invokeEntrypoints("server", DedicatedServerModInitializer.class, DedicatedServerModInitializer::onInitializeServer);
+		loader.finishModInit();
 	}
 
 	public static void setGameInstance(Object gameInstance) {
@@ -365,7 +365,8 @@ public class MinecraftGameProvider implements GameProvider {
 					gameNs,
 					getGameId(), getNormalizedGameVersion(),
 					getLaunchDirectory(),
-					launcher);
+					launcher,
+					transformer);
 
 			for (int i = 0; i < gameJars.size(); i++) {
 				Path newJar = obfJars.get(names[i]);
@@ -146,6 +146,7 @@ public abstract class FabricTweaker extends FabricLauncherBase implements ITweak
 		MixinBootstrap.init();
 		FabricMixinBootstrap.init(getEnvironmentType(), FabricLoaderImpl.INSTANCE);
 		MixinEnvironment.getDefaultEnvironment().setSide(getEnvironmentType() == EnvType.CLIENT ? MixinEnvironment.Side.CLIENT : MixinEnvironment.Side.SERVER);
+		getMappingConfiguration().releaseMappings();
 
 		provider.unlockClassPath(this);
 
@@ -33,6 +33,11 @@ import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
 
 public final class BrandingPatch extends GamePatch {
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+
 	@Override
 	public void process(FabricLauncher launcher, Function<String, ClassNode> classSource, Consumer<ClassNode> classEmitter) {
 		for (String brandClassName : new String[] {
@@ -50,6 +50,7 @@ public class EntrypointPatch extends GamePatch {
 	private static final VersionPredicate VERSION_25w14craftmine = createVersionPredicate("1.21.6-alpha.25.14.craftmine");
 
 	private final MinecraftGameProvider gameProvider;
+	private String appletMainClass;
 
 	public EntrypointPatch(MinecraftGameProvider gameProvider) {
 		this.gameProvider = gameProvider;
@@ -60,6 +61,22 @@ public class EntrypointPatch extends GamePatch {
 		it.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Hooks.INTERNAL_NAME, methodName, "(Ljava/io/File;Ljava/lang/Object;)V", false));
 	}
 
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+
+	@Override
+	public String getCacheState() {
+		return appletMainClass;
+	}
+
+	@Override
+	public void restoreCacheState(FabricLauncher launcher, String state) {
+		appletMainClass = state;
+		if (state != null) Hooks.appletMainClass = state;
+	}
+
 	@Override
 	public void process(FabricLauncher launcher, Function<String, ClassNode> classSource, Consumer<ClassNode> classEmitter) {
 		EnvType type = launcher.getEnvironmentType();
@@ -591,6 +608,7 @@ public class EntrypointPatch extends GamePatch {
 		}
 
 		if (isApplet) {
+			appletMainClass = entrypoint;
 			Hooks.appletMainClass = entrypoint;
 		}
 	}
@@ -39,6 +39,11 @@ public class EntrypointPatchFML125 extends GamePatch {
 	private static final String FROM_INTERNAL = FROM.replace('.', '/');
 	private static final String TO_INTERNAL = "cpw/mods/fml/common/ModClassLoader";
 
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+
 	@Override
 	public void process(FabricLauncher launcher, Function<String, ClassNode> classSource, Consumer<ClassNode> classEmitter) {
 		if (classSource.apply(TO) != null
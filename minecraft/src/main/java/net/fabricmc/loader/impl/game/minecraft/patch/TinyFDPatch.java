@@ -47,6 +47,11 @@ public final class TinyFDPatch extends GamePatch {
 	// This is the en_us value of selectWorld.import_worldgen_settings.select_file
 	private static final String DIALOG_TITLE = "Select settings file (.json)";
 
+	@Override
+	public boolean isCacheable() {
+		return true;
+	}
+
 	@Override
 	public void process(FabricLauncher launcher, Function<String, ClassNode> classSource, Consumer<ClassNode> classEmitter) {
 		if (launcher.getEnvironmentType() != EnvType.CLIENT) {
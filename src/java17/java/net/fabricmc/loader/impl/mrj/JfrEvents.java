@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.mrj;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits loader events to Java Flight Recorder.
+ *
+ * <p>The events are only created while a recording has them enabled. Runtimes without the jdk.jfr module (custom
+ * jlink images) get the no-op behavior.
+ */
+public final class JfrEvents {
+	private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	public static Object beginClassLoad() {
+		if (!AVAILABLE || !ClassLoad.TYPE.isEnabled()) return null;
+
+		ClassLoad ret = new ClassLoad();
+		ret.begin();
+
+		return ret;
+	}
+
+	public static void commitClassLoad(Object e, String className, String modId,
+			long lookupNanos, long readNanos, long gamePatchNanos, long fabricTransformNanos, long mixinNanos, long defineNanos) {
+		ClassLoad event = (ClassLoad) e;
+		event.end();
+		if (!event.shouldCommit()) return;
+
+		event.className = className;
+		event.modId = modId;
+		event.lookup = lookupNanos;
+		event.read = readNanos;
+		event.gamePatch = gamePatchNanos;
+		event.fabricTransform = fabricTransformNanos;
+		event.mixin = mixinNanos;
+		event.define = defineNanos;
+		event.commit();
+	}
+
+	public static boolean isMixinApplyEnabled() {
+		return AVAILABLE && MixinApply.TYPE.isEnabled();
+	}
+
+	public static void commitMixinApply(String className, String config, String modId, int mixins, long nanos) {
+		MixinApply event = new MixinApply();
+		if (!event.shouldCommit()) return;
+
+		event.className = className;
+		event.config = config;
+		event.modId = modId;
+		event.mixins = mixins;
+		event.time = nanos;
+		event.commit();
+	}
+
+	public static boolean isEntrypointEnabled() {
+		return AVAILABLE && EntrypointPhase.TYPE.isEnabled();
+	}
+
+	public static void commitEntrypoint(String key, String modId, String definition, String phase, long nanos) {
+		EntrypointPhase event = new EntrypointPhase();
+		if (!event.shouldCommit()) return;
+
+		event.key = key;
+		event.modId = modId;
+		event.definition = definition;
+		event.phase = phase;
+		event.time = nanos;
+		event.commit();
+	}
+
+	@Name("net.fabricmc.loader.ClassLoad")
+	@Label("Knot Class Load")
+	@Description("Class loaded by Knot with the time spent in each loading phase, excluding nested class loads")
+	@Category({"Fabric Loader", "Class Loading"})
+	@StackTrace(false)
+	private static final class ClassLoad extends Event {
+		static final EventType TYPE = EventType.getEventType(ClassLoad.class);
+
+		@Label("Class Name")
+		String className;
+		@Label("Mod Id")
+		String modId;
+		@Label("Resource Lookup") @Timespan(Timespan.NANOSECONDS)
+		long lookup;
+		@Label("Raw Read") @Timespan(Timespan.NANOSECONDS)
+		long read;
+		@Label("Game Patch") @Timespan(Timespan.NANOSECONDS)
+		long gamePatch;
+		@Label("Fabric Transform") @Timespan(Timespan.NANOSECONDS)
+		long fabricTransform;
+		@Label("Mixin") @Timespan(Timespan.NANOSECONDS)
+		long mixin;
+		@Label("Define Class") @Timespan(Timespan.NANOSECONDS)
+		long define;
+	}
+
+	@Name("net.fabricmc.loader.MixinApply")
+	@Label("Mixin Application")
+	@Description("Mixins of a config applied to a class, with the config's share of the class' Mixin transformation time")
+	@Category({"Fabric Loader", "Mixin"})
+	@StackTrace(false)
+	private static final class MixinApply extends Event {
+		static final EventType TYPE = EventType.getEventType(MixinApply.class);
+
+		@Label("Class Name")
+		String className;
+		@Label("Mixin Config")
+		String config;
+		@Label("Mod Id")
+		String modId;
+		@Label("Applied Mixins")
+		int mixins;
+		@Label("Mixin Time") @Timespan(Timespan.NANOSECONDS)
+		long time;
+	}
+
+	@Name("net.fabricmc.loader.Entrypoint")
+	@Label("Entrypoint")
+	@Description("Instantiation or invocation of a mod's entrypoint")
+	@Category({"Fabric Loader", "Entrypoints"})
+	@StackTrace(false)
+	private static final class EntrypointPhase extends Event {
+		static final EventType TYPE = EventType.getEventType(EntrypointPhase.class);
+
+		@Label("Entrypoint Key")
+		String key;
+		@Label("Mod Id")
+		String modId;
+		@Label("Definition")
+		String definition;
+		@Label("Phase")
+		String phase;
+		@Label("Time") @Timespan(Timespan.NANOSECONDS)
+		long time;
+	}
+}
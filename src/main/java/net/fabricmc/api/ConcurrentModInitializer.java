@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.api;
+
+/**
+ * A mod initializer that may run concurrently with the ones of other mods.
+ *
+ * <p>In {@code fabric.mod.json}, the entrypoint is defined with {@code concurrent} key. Declaring it states that the
+ * initializer is safe to run on a worker thread alongside the ones of unrelated mods.</p>
+ *
+ * <p>The concurrent initializers run after all {@link ModInitializer}s and before the {@link ClientModInitializer}s or
+ * {@link DedicatedServerModInitializer}s. A mod's initializers only start once the ones of the mods it depends on or
+ * recommends have completed, the initializers of a single mod run sequentially in their declaration order.</p>
+ *
+ * @see ModInitializer
+ * @see net.fabricmc.loader.api.FabricLoader#getEntrypointContainers(String, Class)
+ * @since 0.20.0
+ */
+@FunctionalInterface
+public interface ConcurrentModInitializer {
+	/**
+	 * Runs the mod initializer, possibly on a worker thread.
+	 */
+	void onInitializeConcurrently();
+}
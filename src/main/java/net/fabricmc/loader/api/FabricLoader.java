@@ -25,6 +25,7 @@ import java.util.function.Consumer;
 
 import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.fabricmc.loader.api.entrypoint.EntrypointTiming;
 import net.fabricmc.loader.impl.FabricLoaderImpl;
 
 /**
@@ -54,7 +55,7 @@ public interface FabricLoader {
 	 * @param key  the key in entrypoint declaration in {@code fabric.mod.json}
 	 * @param type the type of entrypoints
 	 * @param <T>  the type of entrypoints
-	 * @return the obtained entrypoints
+	 * @return the obtained entrypoints as an unmodifiable list
 	 * @see #getEntrypointContainers(String, Class)
 	 */
 	<T> List<T> getEntrypoints(String key, Class<T> type);
@@ -94,7 +95,7 @@ public interface FabricLoader {
 	 * @param key  the key in entrypoint declaration in {@code fabric.mod.json}
 	 * @param type the type of entrypoints
 	 * @param <T>  the type of entrypoints
-	 * @return the entrypoint containers related to this key
+	 * @return the entrypoint containers related to this key as an unmodifiable list
 	 * @throws EntrypointException if a problem arises during entrypoint creation
 	 * @see LanguageAdapter
 	 */
@@ -116,6 +117,17 @@ public interface FabricLoader {
 	 */
 	<T> void invokeEntrypoints(String key, Class<T> type, Consumer<? super T> invoker);
 
+	/**
+	 * Returns the time spent instantiating and invoking entrypoints so far, per entrypoint key and mod.
+	 *
+	 * <p>The result is a snapshot ordered by descending total time. Invocation times are only available for
+	 * entrypoints invoked through {@link #invokeEntrypoints(String, Class, Consumer)}.
+	 *
+	 * @return the entrypoint timings as an unmodifiable list
+	 * @since 0.20.0
+	 */
+	List<EntrypointTiming> getEntrypointTimings();
+
 	/**
 	 * Get the object share for inter-mod communication.
 	 *
@@ -84,4 +84,105 @@ public interface MappingResolver {
 	 * @return the mapped method name, or {@code name} if no such mapping is present
 	 */
 	String mapMethodName(String namespace, String owner, String name, String descriptor);
+
+	/**
+	 * Map several class names to the mapping currently used at runtime.
+	 *
+	 * <p>This is equivalent to calling {@link #mapClassName(String, String)} for each element, but resolves the
+	 * namespace only once and may be considerably faster for large batches.</p>
+	 *
+	 * @param namespace the namespace of the provided class names
+	 * @param classNames the provided binary class names
+	 * @return a new array holding the mapped class names in the same order, each being the input name if no such
+	 * mapping is present
+	 * @since 0.20.0
+	 */
+	default String[] mapClassNames(String namespace, String... classNames) {
+		String[] ret = new String[classNames.length];
+
+		for (int i = 0; i < classNames.length; i++) {
+			ret[i] = mapClassName(namespace, classNames[i]);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Unmap several class names from the mapping currently used at runtime.
+	 *
+	 * <p>This is the bulk equivalent of {@link #unmapClassName(String, String)}.</p>
+	 *
+	 * @param targetNamespace The target namespace for unmapping.
+	 * @param classNames the provided binary class names of the mapping form currently used at runtime
+	 * @return a new array holding the unmapped class names in the same order, each being the input name if no such
+	 * mapping is present
+	 * @since 0.20.0
+	 */
+	default String[] unmapClassNames(String targetNamespace, String... classNames) {
+		String[] ret = new String[classNames.length];
+
+		for (int i = 0; i < classNames.length; i++) {
+			ret[i] = unmapClassName(targetNamespace, classNames[i]);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Map several field names to the mapping currently used at runtime.
+	 *
+	 * <p>The arrays are read in parallel, element {@code i} of the result is the mapping of the field described by
+	 * {@code owners[i]}, {@code names[i]} and {@code descriptors[i]} as in
+	 * {@link #mapFieldName(String, String, String, String)}.</p>
+	 *
+	 * @param namespace the namespace of the provided field names and descriptors
+	 * @param owners the binary names of the owner classes of the fields
+	 * @param names the names of the fields
+	 * @param descriptors the descriptors of the fields
+	 * @return a new array holding the mapped field names, each being the input name if no such mapping is present
+	 * @throws IllegalArgumentException if the arrays don't have the same length
+	 * @since 0.20.0
+	 */
+	default String[] mapFieldNames(String namespace, String[] owners, String[] names, String[] descriptors) {
+		if (owners.length != names.length || descriptors.length != names.length) {
+			throw new IllegalArgumentException("owners, names and descriptors must have the same length");
+		}
+
+		String[] ret = new String[names.length];
+
+		for (int i = 0; i < names.length; i++) {
+			ret[i] = mapFieldName(namespace, owners[i], names[i], descriptors[i]);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Map several method names to the mapping currently used at runtime.
+	 *
+	 * <p>The arrays are read in parallel, element {@code i} of the result is the mapping of the method described by
+	 * {@code owners[i]}, {@code names[i]} and {@code descriptors[i]} as in
+	 * {@link #mapMethodName(String, String, String, String)}.</p>
+	 *
+	 * @param namespace the namespace of the provided method names and descriptors
+	 * @param owners the binary names of the owner classes of the methods
+	 * @param names the names of the methods
+	 * @param descriptors the descriptors of the methods
+	 * @return a new array holding the mapped method names, each being the input name if no such mapping is present
+	 * @throws IllegalArgumentException if the arrays don't have the same length
+	 * @since 0.20.0
+	 */
+	default String[] mapMethodNames(String namespace, String[] owners, String[] names, String[] descriptors) {
+		if (owners.length != names.length || descriptors.length != names.length) {
+			throw new IllegalArgumentException("owners, names and descriptors must have the same length");
+		}
+
+		String[] ret = new String[names.length];
+
+		for (int i = 0; i < names.length; i++) {
+			ret[i] = mapMethodName(namespace, owners[i], names[i], descriptors[i]);
+		}
+
+		return ret;
+	}
 }
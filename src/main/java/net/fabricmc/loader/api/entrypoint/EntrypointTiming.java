@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.api.entrypoint;
+
+import net.fabricmc.loader.api.ModContainer;
+
+/**
+ * The time spent on the entrypoints of a mod for an entrypoint key.
+ *
+ * <p>Instantiation covers creating the entrypoint instances through their language adapter, invocation covers
+ * running them through {@link net.fabricmc.loader.api.FabricLoader#invokeEntrypoints}.
+ *
+ * @see net.fabricmc.loader.api.FabricLoader#getEntrypointTimings()
+ * @since 0.20.0
+ */
+public interface EntrypointTiming {
+	/**
+	 * Returns the entrypoint key.
+	 */
+	String getKey();
+
+	/**
+	 * Returns the mod that provided the entrypoints.
+	 */
+	ModContainer getProvider();
+
+	/**
+	 * Returns the number of entrypoint invocations.
+	 */
+	int getInvocationCount();
+
+	/**
+	 * Returns the time spent instantiating the entrypoints in nanoseconds.
+	 */
+	long getInstantiationTime();
+
+	/**
+	 * Returns the time spent invoking the entrypoints in nanoseconds.
+	 */
+	long getInvocationTime();
+
+	/**
+	 * Returns the total time spent on the entrypoints in nanoseconds.
+	 */
+	default long getTotalTime() {
+		return getInstantiationTime() + getInvocationTime();
+	}
+}
@@ -46,6 +46,7 @@ import net.fabricmc.loader.api.MappingResolver;
 import net.fabricmc.loader.api.ModContainer;
 import net.fabricmc.loader.api.ObjectShare;
 import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.fabricmc.loader.api.entrypoint.EntrypointTiming;
 import net.fabricmc.loader.impl.discovery.ArgumentModCandidateFinder;
 import net.fabricmc.loader.impl.discovery.ClasspathModCandidateFinder;
 import net.fabricmc.loader.impl.discovery.DirectoryModCandidateFinder;
@@ -54,15 +55,23 @@ import net.fabricmc.loader.impl.discovery.ModDiscoverer;
 import net.fabricmc.loader.impl.discovery.ModResolutionException;
 import net.fabricmc.loader.impl.discovery.ModResolver;
 import net.fabricmc.loader.impl.discovery.RuntimeModRemapper;
+import net.fabricmc.loader.impl.entrypoint.ConcurrentEntrypointInvoker;
+import net.fabricmc.loader.impl.entrypoint.EntrypointPreloader;
+import net.fabricmc.loader.impl.entrypoint.EntrypointProfiler;
 import net.fabricmc.loader.impl.entrypoint.EntrypointStorage;
 import net.fabricmc.loader.impl.game.GameProvider;
 import net.fabricmc.loader.impl.launch.FabricLauncherBase;
 import net.fabricmc.loader.impl.launch.MappingConfiguration;
+import net.fabricmc.loader.impl.launch.knot.CdsArchive;
+import net.fabricmc.loader.impl.launch.knot.ClassLoadProfiler;
 import net.fabricmc.loader.impl.launch.knot.Knot;
+import net.fabricmc.loader.impl.launch.knot.MixinClassCache;
+import net.fabricmc.loader.impl.launch.knot.MixinMetrics;
 import net.fabricmc.loader.impl.metadata.DependencyOverrides;
 import net.fabricmc.loader.impl.metadata.EntrypointMetadata;
 import net.fabricmc.loader.impl.metadata.LoaderModMetadata;
 import net.fabricmc.loader.impl.metadata.VersionOverrides;
+import net.fabricmc.loader.impl.transformer.EnvironmentAnnotationIndex;
 import net.fabricmc.loader.impl.util.DefaultLanguageAdapter;
 import net.fabricmc.loader.impl.util.ExceptionUtil;
 import net.fabricmc.loader.impl.util.LoaderUtil;
@@ -82,6 +91,12 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 	public static final String CACHE_DIR_NAME = ".fabric"; // relative to game dir
 	private static final String PROCESSED_MODS_DIR_NAME = "processedMods"; // relative to cache dir
 	public static final String REMAPPED_JARS_DIR_NAME = "remappedJars"; // relative to cache dir
+	public static final String COMPILED_MAPPINGS_FILE_NAME = "mappings.bin"; // relative to cache dir
+	public static final String CLASS_CACHE_DIR_NAME = "classCache"; // relative to cache dir
+	public static final String CLASS_LOAD_PROFILE_FILE_NAME = "classLoadProfile.txt"; // relative to cache dir
+	public static final String CDS_DIR_NAME = "cds"; // relative to cache dir
+	public static final String GAME_PATCH_CACHE_FILE_NAME = "gamePatches.bin"; // relative to cache dir
+	private static final String ENVIRONMENT_INDEX_DIR_NAME = "environmentIndex"; // relative to cache dir
 	private static final String TMP_DIR_NAME = "tmp"; // relative to cache dir
 
 	protected final Map<String, ModContainerImpl> modMap = new HashMap<>();
@@ -292,6 +307,20 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 		}
 
 		modCandidates = null;
+
+		// index the mod jars' classes without environment annotations to skip scanning them while stripping
+
+		if (!isDevelopmentEnvironment() && !SystemProperties.isSet(SystemProperties.DEBUG_DISABLE_ENVIRONMENT_INDEX)) {
+			List<Path> codeSources = new ArrayList<>();
+
+			for (ModContainerImpl mod : mods) {
+				if (mod.getMetadata().getId().equals(MOD_ID) || mod.getMetadata().getType().equals("builtin")) continue;
+
+				codeSources.addAll(mod.getCodeSourcePaths());
+			}
+
+			EnvironmentAnnotationIndex.build(cacheDir.resolve(ENVIRONMENT_INDEX_DIR_NAME), codeSources);
+		}
 	}
 
 	@VisibleForTesting
@@ -402,11 +431,22 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 		RuntimeException exception = null;
 		Collection<EntrypointContainer<T>> entrypoints = FabricLoaderImpl.INSTANCE.getEntrypointContainers(key, type);
 
+		if (SystemProperties.isSet(SystemProperties.PRELOAD_ENTRYPOINTS)) {
+			EntrypointPreloader.preload(key, entrypoints, FabricLauncherBase.getLauncher().getTargetClassLoader());
+		}
+
 		Log.debug(LogCategory.ENTRYPOINT, "Iterating over entrypoint '%s'", key);
 
 		for (EntrypointContainer<T> container : entrypoints) {
 			try {
-				invoker.accept(container.getEntrypoint());
+				T entrypoint = container.getEntrypoint();
+				long startTime = System.nanoTime();
+
+				try {
+					invoker.accept(entrypoint);
+				} finally {
+					EntrypointProfiler.recordInvocation(key, container.getProvider(), container.getDefinition(), System.nanoTime() - startTime);
+				}
 			} catch (Throwable t) {
 				exception = ExceptionUtil.gatherExceptions(t,
 						exception,
@@ -421,13 +461,32 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 		}
 	}
 
+	@Override
+	public List<EntrypointTiming> getEntrypointTimings() {
+		return EntrypointProfiler.getTimings();
+	}
+
+	/**
+	 * Invoke the entrypoints of a stage on worker threads, ordered by the mods' dependencies.
+	 *
+	 * @see ConcurrentEntrypointInvoker
+	 */
+	public <T> void invokeConcurrentEntrypoints(String key, Class<T> type, Consumer<? super T> invoker) {
+		if (!hasEntrypoints(key)) {
+			Log.debug(LogCategory.ENTRYPOINT, "No subscribers for entrypoint '%s'", key);
+			return;
+		}
+
+		ConcurrentEntrypointInvoker.invoke(this, key, getEntrypointContainers(key, type), invoker);
+	}
+
 	@Override
 	public MappingResolver getMappingResolver() {
 		if (mappingResolver == null) {
 			MappingConfiguration config = FabricLauncherBase.getLauncher().getMappingConfiguration();
 			String runtimeNamespace = config.getRuntimeNamespace();
 
-			mappingResolver = new LazyMappingResolver(() -> new MappingResolverImpl(config.getMappings(), runtimeNamespace),
+			mappingResolver = new LazyMappingResolver(() -> new MappingResolverImpl(config.getMappingTable(), runtimeNamespace),
 					runtimeNamespace);
 		}
 
@@ -519,6 +578,8 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 				throw new RuntimeException(String.format("Failed to setup mod %s (%s)", mod.getInfo().getName(), mod.getOrigin()), e);
 			}
 		}
+
+		entrypointStorage.freeze();
 	}
 
 	public void loadClassTweakers() {
@@ -595,6 +656,23 @@ public final class FabricLoaderImpl extends net.fabricmc.loader.FabricLoader {
 		}
 	}
 
+	/**
+	 * Called by the game provider once the mod initializers for the current environment ran.
+	 */
+	public void finishModInit() {
+		EntrypointProfiler.logReport();
+
+		if (FabricLauncherBase.getLauncher() instanceof Knot) {
+			ClassLoadProfiler.logReport();
+			MixinClassCache.logStats();
+			MixinMetrics.logReport();
+
+			if (SystemProperties.isSet(SystemProperties.CDS_ARCHIVE)) {
+				CdsArchive.update(getGameDir(), getEnvironmentType());
+			}
+		}
+	}
+
 	public ClassTweaker getClassTweaker() {
 		return classTweaker;
 	}
@@ -84,4 +84,36 @@ public class LazyMappingResolver implements MappingResolver {
 
 		return getDelegate().mapMethodName(namespace, owner, name, descriptor);
 	}
+
+	@Override
+	public String[] mapClassNames(String namespace, String... classNames) {
+		if (namespace.equals(currentRuntimeNamespace)) {
+			return classNames.clone();
+		}
+
+		return getDelegate().mapClassNames(namespace, classNames);
+	}
+
+	@Override
+	public String[] unmapClassNames(String targetNamespace, String... classNames) {
+		return getDelegate().unmapClassNames(targetNamespace, classNames);
+	}
+
+	@Override
+	public String[] mapFieldNames(String namespace, String[] owners, String[] names, String[] descriptors) {
+		if (namespace.equals(currentRuntimeNamespace)) {
+			return MappingResolver.super.mapFieldNames(namespace, owners, names, descriptors);
+		}
+
+		return getDelegate().mapFieldNames(namespace, owners, names, descriptors);
+	}
+
+	@Override
+	public String[] mapMethodNames(String namespace, String[] owners, String[] names, String[] descriptors) {
+		if (namespace.equals(currentRuntimeNamespace)) {
+			return MappingResolver.super.mapMethodNames(namespace, owners, names, descriptors);
+		}
+
+		return getDelegate().mapMethodNames(namespace, owners, names, descriptors);
+	}
 }
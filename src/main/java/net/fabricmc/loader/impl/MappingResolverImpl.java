@@ -19,16 +19,20 @@ package net.fabricmc.loader.impl;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.fabricmc.loader.api.MappingResolver;
-import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.loader.impl.util.mappings.MappingTable;
 
 class MappingResolverImpl implements MappingResolver {
-	private final MappingTree mappings;
+	private final MappingTable mappings;
 	private final String targetNamespace;
 	private final int targetNamespaceId;
+	private final Map<String, NamespaceHandle> handles = new ConcurrentHashMap<>();
 
-	MappingResolverImpl(MappingTree mappings, String targetNamespace) {
+	MappingResolverImpl(MappingTable mappings, String targetNamespace) {
 		this.mappings = mappings;
 		this.targetNamespace = targetNamespace;
 		this.targetNamespaceId = mappings.getNamespaceId(targetNamespace);
@@ -36,9 +40,7 @@ class MappingResolverImpl implements MappingResolver {
 
 	@Override
 	public Collection<String> getNamespaces() {
-		HashSet<String> namespaces = new HashSet<>(mappings.getDstNamespaces());
-		namespaces.add(mappings.getSrcNamespace());
-		return Collections.unmodifiableSet(namespaces);
+		return Collections.unmodifiableSet(new HashSet<>(mappings.getNamespaces()));
 	}
 
 	@Override
@@ -48,40 +50,79 @@ class MappingResolverImpl implements MappingResolver {
 
 	@Override
 	public String mapClassName(String namespace, String className) {
-		if (className.indexOf('/') >= 0) {
-			throw new IllegalArgumentException("Class names must be provided in dot format: " + className);
+		return getHandle(namespace).mapClassName(className);
+	}
+
+	@Override
+	public String unmapClassName(String namespace, String className) {
+		return getHandle(namespace).unmapClassName(className);
+	}
+
+	@Override
+	public String mapFieldName(String namespace, String owner, String name, String descriptor) {
+		return getHandle(namespace).mapFieldName(owner, name, descriptor);
+	}
+
+	@Override
+	public String mapMethodName(String namespace, String owner, String name, String descriptor) {
+		return getHandle(namespace).mapMethodName(owner, name, descriptor);
+	}
+
+	@Override
+	public String[] mapClassNames(String namespace, String... classNames) {
+		NamespaceHandle handle = getHandle(namespace);
+		String[] ret = new String[classNames.length];
+
+		for (int i = 0; i < classNames.length; i++) {
+			ret[i] = handle.mapClassName(classNames[i]);
 		}
 
-		return replaceSlashesWithDots(mappings.mapClassName(replaceDotsWithSlashes(className), mappings.getNamespaceId(namespace), targetNamespaceId));
+		return ret;
 	}
 
 	@Override
-	public String unmapClassName(String namespace, String className) {
-		if (className.indexOf('/') >= 0) {
-			throw new IllegalArgumentException("Class names must be provided in dot format: " + className);
+	public String[] unmapClassNames(String targetNamespace, String... classNames) {
+		NamespaceHandle handle = getHandle(targetNamespace);
+		String[] ret = new String[classNames.length];
+
+		for (int i = 0; i < classNames.length; i++) {
+			ret[i] = handle.unmapClassName(classNames[i]);
 		}
 
-		return replaceSlashesWithDots(mappings.mapClassName(replaceDotsWithSlashes(className), targetNamespaceId, mappings.getNamespaceId(namespace)));
+		return ret;
 	}
 
 	@Override
-	public String mapFieldName(String namespace, String owner, String name, String descriptor) {
-		if (owner.indexOf('/') >= 0) {
-			throw new IllegalArgumentException("Class names must be provided in dot format: " + owner);
+	public String[] mapFieldNames(String namespace, String[] owners, String[] names, String[] descriptors) {
+		checkBulkArgs(owners, names, descriptors);
+		NamespaceHandle handle = getHandle(namespace);
+		String[] ret = new String[names.length];
+
+		for (int i = 0; i < names.length; i++) {
+			ret[i] = handle.mapFieldName(owners[i], names[i], descriptors[i]);
 		}
 
-		MappingTree.FieldMapping field = mappings.getField(replaceDotsWithSlashes(owner), name, descriptor, mappings.getNamespaceId(namespace));
-		return field == null ? name : field.getName(targetNamespaceId);
+		return ret;
 	}
 
 	@Override
-	public String mapMethodName(String namespace, String owner, String name, String descriptor) {
-		if (owner.indexOf('/') >= 0) {
-			throw new IllegalArgumentException("Class names must be provided in dot format: " + owner);
+	public String[] mapMethodNames(String namespace, String[] owners, String[] names, String[] descriptors) {
+		checkBulkArgs(owners, names, descriptors);
+		NamespaceHandle handle = getHandle(namespace);
+		String[] ret = new String[names.length];
+
+		for (int i = 0; i < names.length; i++) {
+			ret[i] = handle.mapMethodName(owners[i], names[i], descriptors[i]);
 		}
 
-		MappingTree.MethodMapping method = mappings.getMethod(replaceDotsWithSlashes(owner), name, descriptor, mappings.getNamespaceId(namespace));
-		return method == null ? name : method.getName(targetNamespaceId);
+		return ret;
+	}
+
+	private NamespaceHandle getHandle(String namespace) {
+		NamespaceHandle ret = handles.get(namespace);
+		if (ret != null) return ret;
+
+		return handles.computeIfAbsent(namespace, ns -> new NamespaceHandle(mappings.getNamespaceId(ns)));
 	}
 
 	private static String replaceSlashesWithDots(String cname) {
@@ -91,4 +132,126 @@ class MappingResolverImpl implements MappingResolver {
 	private static String replaceDotsWithSlashes(String cname) {
 		return cname.replace('.', '/');
 	}
+
+	private static void checkBulkArgs(String[] owners, String[] names, String[] descriptors) {
+		if (owners.length != names.length || descriptors.length != names.length) {
+			throw new IllegalArgumentException("owners, names and descriptors must have the same length");
+		}
+	}
+
+	private static void checkDotFormat(String className) {
+		if (className.indexOf('/') >= 0) {
+			throw new IllegalArgumentException("Class names must be provided in dot format: " + className);
+		}
+	}
+
+	/**
+	 * Resolved namespace id plus memoized results for mapping between it and the runtime namespace.
+	 *
+	 * <p>Only names that have a mapping are cached, which keeps the caches bounded by the size of the mappings. Misses
+	 * (e.g. for JDK or library classes) may come from arbitrary input and fall through to the mapping table each time.
+	 */
+	private final class NamespaceHandle {
+		private final int namespaceId;
+		private final boolean identity;
+		private final Map<String, String> mappedClasses = new ConcurrentHashMap<>();
+		private final Map<String, String> unmappedClasses = new ConcurrentHashMap<>();
+		private final Map<MemberKey, String> mappedFields = new ConcurrentHashMap<>();
+		private final Map<MemberKey, String> mappedMethods = new ConcurrentHashMap<>();
+
+		NamespaceHandle(int namespaceId) {
+			this.namespaceId = namespaceId;
+			this.identity = namespaceId < 0 || namespaceId == targetNamespaceId;
+		}
+
+		String mapClassName(String className) {
+			checkDotFormat(className);
+			if (identity) return className;
+
+			String ret = mappedClasses.get(className);
+			if (ret != null) return ret;
+
+			ret = mappings.getClassName(replaceDotsWithSlashes(className), namespaceId, targetNamespaceId);
+			if (ret == null) return className;
+
+			ret = replaceSlashesWithDots(ret);
+			mappedClasses.putIfAbsent(className, ret);
+
+			return ret;
+		}
+
+		String unmapClassName(String className) {
+			checkDotFormat(className);
+			if (identity) return className;
+
+			String ret = unmappedClasses.get(className);
+			if (ret != null) return ret;
+
+			ret = mappings.getClassName(replaceDotsWithSlashes(className), targetNamespaceId, namespaceId);
+			if (ret == null) return className;
+
+			ret = replaceSlashesWithDots(ret);
+			unmappedClasses.putIfAbsent(className, ret);
+
+			return ret;
+		}
+
+		String mapFieldName(String owner, String name, String descriptor) {
+			return mapMemberName(owner, name, descriptor, false);
+		}
+
+		String mapMethodName(String owner, String name, String descriptor) {
+			return mapMemberName(owner, name, descriptor, true);
+		}
+
+		private String mapMemberName(String owner, String name, String descriptor, boolean method) {
+			checkDotFormat(owner);
+			if (identity) return name;
+
+			MemberKey key = new MemberKey(owner, name, descriptor);
+			Map<MemberKey, String> cache = method ? mappedMethods : mappedFields;
+			String ret = cache.get(key);
+			if (ret != null) return ret;
+
+			String slashOwner = replaceDotsWithSlashes(owner);
+			ret = method ? mappings.mapMethodName(slashOwner, name, descriptor, namespaceId, targetNamespaceId)
+					: mappings.mapFieldName(slashOwner, name, descriptor, namespaceId, targetNamespaceId);
+			if (ret == null) return name;
+
+			cache.putIfAbsent(key, ret);
+
+			return ret;
+		}
+	}
+
+	private static final class MemberKey {
+		final String owner;
+		final String name;
+		final String descriptor;
+		final int hash;
+
+		MemberKey(String owner, String name, String descriptor) {
+			this.owner = owner;
+			this.name = name;
+			this.descriptor = descriptor;
+			this.hash = (owner.hashCode() * 31 + name.hashCode()) * 31 + Objects.hashCode(descriptor);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MemberKey)) return false;
+
+			MemberKey o = (MemberKey) obj;
+
+			return hash == o.hash
+					&& owner.equals(o.owner)
+					&& name.equals(o.name)
+					&& Objects.equals(descriptor, o.descriptor);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.entrypoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import net.fabricmc.loader.api.ModContainer;
+import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.fabricmc.loader.api.metadata.ModDependency;
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.util.ExceptionUtil;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Invokes the entrypoints of a stage on a fork-join pool, ordered by the mods' dependencies.
+ *
+ * <p>A mod's entrypoints run sequentially as one task, which starts once the tasks of all mods it depends on or
+ * recommends have finished. Dependencies through mods without entrypoints in the stage are followed transitively,
+ * dependency cycles are broken in mod order. Failures don't stop other mods and get aggregated like in
+ * {@link FabricLoaderImpl#invokeEntrypoints}.
+ */
+public final class ConcurrentEntrypointInvoker<T> {
+	private final FabricLoaderImpl loader;
+	private final String key;
+	private final Consumer<? super T> invoker;
+	private final Map<String, List<EntrypointContainer<T>>> entrypointsByMod = new LinkedHashMap<>();
+	private final Map<String, List<String>> dependencies = new HashMap<>();
+	private final List<String> order = new ArrayList<>(); // dependencies before dependents
+	private RuntimeException exception;
+
+	public static <T> void invoke(FabricLoaderImpl loader, String key, Collection<EntrypointContainer<T>> entrypoints, Consumer<? super T> invoker) {
+		ConcurrentEntrypointInvoker<T> ret = new ConcurrentEntrypointInvoker<>(loader, key, invoker);
+
+		for (EntrypointContainer<T> container : entrypoints) {
+			ret.entrypointsByMod.computeIfAbsent(container.getProvider().getMetadata().getId(), ignore -> new ArrayList<>()).add(container);
+		}
+
+		ret.sort();
+		ret.run();
+	}
+
+	private ConcurrentEntrypointInvoker(FabricLoaderImpl loader, String key, Consumer<? super T> invoker) {
+		this.loader = loader;
+		this.key = key;
+		this.invoker = invoker;
+	}
+
+	/**
+	 * Determine the dependencies between the participating mods and a topological order, dropping cycle edges.
+	 */
+	private void sort() {
+		Set<String> visiting = new HashSet<>();
+		Set<String> done = new HashSet<>();
+
+		for (String modId : entrypointsByMod.keySet()) {
+			visit(modId, visiting, done);
+		}
+	}
+
+	private void visit(String modId, Set<String> visiting, Set<String> done) {
+		if (done.contains(modId) || !visiting.add(modId)) return;
+
+		List<String> deps = new ArrayList<>();
+
+		for (String dep : collectDependencies(modId)) {
+			if (visiting.contains(dep)) {
+				Log.debug(LogCategory.ENTRYPOINT, "Ignoring cyclic dependency of %s on %s for entrypoint '%s'", modId, dep, key);
+				continue;
+			}
+
+			visit(dep, visiting, done);
+			deps.add(dep);
+		}
+
+		visiting.remove(modId);
+		done.add(modId);
+		dependencies.put(modId, deps);
+		order.add(modId);
+	}
+
+	/**
+	 * Collect the participating mods a mod depends on or recommends, directly or through non-participating mods.
+	 */
+	private Set<String> collectDependencies(String modId) {
+		Set<String> ret = new HashSet<>();
+		Set<String> visited = new HashSet<>();
+		List<String> queue = new ArrayList<>();
+		visited.add(modId);
+		queue.add(modId);
+
+		while (!queue.isEmpty()) {
+			Optional<ModContainer> mod = loader.getModContainer(queue.remove(queue.size() - 1));
+			if (!mod.isPresent()) continue;
+
+			for (ModDependency dep : mod.get().getMetadata().getDependencies()) {
+				if (dep.getKind() != ModDependency.Kind.DEPENDS && dep.getKind() != ModDependency.Kind.RECOMMENDS) continue;
+
+				Optional<ModContainer> target = loader.getModContainer(dep.getModId());
+				if (!target.isPresent()) continue;
+
+				String targetId = target.get().getMetadata().getId();
+				if (!visited.add(targetId)) continue;
+
+				if (entrypointsByMod.containsKey(targetId)) {
+					ret.add(targetId);
+				} else {
+					queue.add(targetId);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private void run() {
+		if (SystemProperties.isSet(SystemProperties.DEBUG_DISABLE_CONCURRENT_INIT) || order.size() < 2) {
+			for (String modId : order) {
+				runMod(modId);
+			}
+		} else {
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			AtomicInteger threadIndex = new AtomicInteger();
+			ForkJoinPool pool = new ForkJoinPool(Math.min(order.size(), Runtime.getRuntime().availableProcessors()), p -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+				thread.setName("Fabric Concurrent Init " + threadIndex.getAndIncrement());
+				thread.setContextClassLoader(classLoader);
+				return thread;
+			}, null, false);
+			Map<String, CompletableFuture<Void>> futures = new HashMap<>(order.size());
+
+			Log.debug(LogCategory.ENTRYPOINT, "Invoking entrypoint '%s' for %d mods on %d threads", key, order.size(), pool.getParallelism());
+
+			try {
+				for (String modId : order) {
+					List<String> deps = dependencies.get(modId);
+					CompletableFuture<Void> future;
+
+					if (deps.isEmpty()) {
+						future = CompletableFuture.runAsync(() -> runMod(modId), pool);
+					} else {
+						CompletableFuture<?>[] depFutures = new CompletableFuture<?>[deps.size()];
+
+						for (int i = 0; i < depFutures.length; i++) {
+							depFutures[i] = futures.get(deps.get(i));
+						}
+
+						future = CompletableFuture.allOf(depFutures).thenRunAsync(() -> runMod(modId), pool);
+					}
+
+					futures.put(modId, future);
+				}
+
+				CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+			} catch (CompletionException e) { // only with fabric.debug.throwDirectly
+				throw ExceptionUtil.wrap(e.getCause());
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private void runMod(String modId) {
+		for (EntrypointContainer<T> container : entrypointsByMod.get(modId)) {
+			try {
+				T entrypoint = container.getEntrypoint();
+				long startTime = System.nanoTime();
+
+				try {
+					invoker.accept(entrypoint);
+				} finally {
+					EntrypointProfiler.recordInvocation(key, container.getProvider(), container.getDefinition(), System.nanoTime() - startTime);
+				}
+			} catch (Throwable t) {
+				synchronized (this) {
+					exception = ExceptionUtil.gatherExceptions(t,
+							exception,
+							exc -> new RuntimeException(String.format("Could not execute entrypoint stage '%s' due to errors, provided by '%s' at '%s'!",
+									key, modId, container.getDefinition()),
+									exc));
+				}
+			}
+		}
+	}
+}
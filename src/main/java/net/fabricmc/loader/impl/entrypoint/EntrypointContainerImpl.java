@@ -24,7 +24,7 @@ public final class EntrypointContainerImpl<T> implements EntrypointContainer<T>
 	private final String key;
 	private final Class<T> type;
 	private final EntrypointStorage.Entry entry;
-	private T instance;
+	private volatile T instance;
 
 	/**
 	 * Create EntrypointContainer with lazy init.
@@ -47,17 +47,20 @@ public final class EntrypointContainerImpl<T> implements EntrypointContainer<T>
 
 	@SuppressWarnings("deprecation")
 	@Override
-	public synchronized T getEntrypoint() {
-		if (instance == null) {
+	public T getEntrypoint() {
+		T ret = instance;
+
+		if (ret == null) {
 			try {
-				instance = entry.getOrCreate(type);
-				assert instance != null;
+				ret = entry.getOrCreate(type); // memoized by the entry as well
+				assert ret != null;
+				instance = ret;
 			} catch (Exception ex) {
 				throw new EntrypointException(key, getProvider().getMetadata().getId(), ex);
 			}
 		}
 
-		return instance;
+		return ret;
 	}
 
 	@Override
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.entrypoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Loads the classes of an entrypoint stage on worker threads ahead of their invocation.
+ *
+ * <p>The classes are loaded in invocation order without being initialized, so reading, transforming and defining them
+ * overlaps with invoking the preceding entrypoints while instantiation and static initialization stay on the invoking
+ * thread. Failures are left to the invoking thread to run into and report.
+ */
+public final class EntrypointPreloader {
+	private static final int MAX_THREADS = 4;
+
+	private EntrypointPreloader() { }
+
+	public static void preload(String key, Collection<? extends EntrypointContainer<?>> entrypoints, ClassLoader classLoader) {
+		Set<String> classNames = new LinkedHashSet<>(entrypoints.size());
+
+		for (EntrypointContainer<?> container : entrypoints) {
+			String definition = container.getDefinition();
+			int pos = definition.indexOf("::");
+
+			classNames.add(pos >= 0 ? definition.substring(0, pos) : definition);
+		}
+
+		if (classNames.size() < 2) return; // nothing to overlap with
+
+		List<String> queue = new ArrayList<>(classNames);
+		AtomicInteger nextIndex = new AtomicInteger();
+		int threads = Math.max(1, Math.min(Math.min(MAX_THREADS, queue.size() - 1), Runtime.getRuntime().availableProcessors() - 1));
+		Log.debug(LogCategory.ENTRYPOINT, "Preloading %d classes for entrypoint '%s' with %d threads", queue.size(), key, threads);
+
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(() -> run(queue, nextIndex, classLoader), "Fabric Entrypoint Preload " + i);
+			thread.setDaemon(true);
+			thread.setContextClassLoader(classLoader);
+			thread.start();
+		}
+	}
+
+	private static void run(List<String> queue, AtomicInteger nextIndex, ClassLoader classLoader) {
+		int index;
+
+		while ((index = nextIndex.getAndIncrement()) < queue.size()) {
+			String name = queue.get(index);
+
+			try {
+				Class.forName(name, false, classLoader);
+			} catch (Throwable t) { // the invoking thread will redo and report it
+				Log.debug(LogCategory.ENTRYPOINT, "Preloading entrypoint class %s failed", name, t);
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.entrypoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.fabricmc.loader.api.ModContainer;
+import net.fabricmc.loader.api.entrypoint.EntrypointTiming;
+import net.fabricmc.loader.impl.mrj.JfrEvents;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Accumulates the time spent instantiating and invoking entrypoints per entrypoint key and mod.
+ *
+ * <p>The timings are always collected for {@link #getTimings}, emitted as JFR events while recorded and logged by
+ * {@link #logReport} if {@link SystemProperties#DEBUG_ENTRYPOINT_REPORT} is set.
+ */
+public final class EntrypointProfiler {
+	private static final boolean REPORT = SystemProperties.isSet(SystemProperties.DEBUG_ENTRYPOINT_REPORT);
+	private static final int REPORTED_ENTRIES = 20;
+	private static final String INSTANTIATION = "instantiation";
+	private static final String INVOCATION = "invocation";
+
+	private static final Map<String, Accumulator> accumulators = new ConcurrentHashMap<>(); // by key + '\0' + mod id
+
+	private EntrypointProfiler() { }
+
+	static void recordInstantiation(String key, ModContainer mod, String definition, long time) {
+		getAccumulator(key, mod).addInstantiation(time);
+		if (JfrEvents.isEntrypointEnabled()) JfrEvents.commitEntrypoint(key, mod.getMetadata().getId(), definition, INSTANTIATION, time);
+	}
+
+	public static void recordInvocation(String key, ModContainer mod, String definition, long time) {
+		getAccumulator(key, mod).addInvocation(time);
+		if (JfrEvents.isEntrypointEnabled()) JfrEvents.commitEntrypoint(key, mod.getMetadata().getId(), definition, INVOCATION, time);
+	}
+
+	private static Accumulator getAccumulator(String key, ModContainer mod) {
+		return accumulators.computeIfAbsent(key + '\0' + mod.getMetadata().getId(), ignore -> new Accumulator(key, mod));
+	}
+
+	/**
+	 * Get a snapshot of the timings, ordered by descending total time.
+	 */
+	public static List<EntrypointTiming> getTimings() {
+		List<EntrypointTiming> ret = new ArrayList<>(accumulators.size());
+
+		for (Accumulator accumulator : accumulators.values()) {
+			ret.add(accumulator.snapshot());
+		}
+
+		ret.sort(Comparator.comparingLong(EntrypointTiming::getTotalTime).reversed());
+
+		return Collections.unmodifiableList(ret);
+	}
+
+	/**
+	 * Log the time spent per entrypoint key and the mods that took the most time so far.
+	 */
+	public static void logReport() {
+		if (!REPORT || accumulators.isEmpty()) return;
+
+		List<EntrypointTiming> timings = getTimings();
+		Map<String, long[]> keyTotals = new LinkedHashMap<>();
+		long total = 0;
+
+		for (EntrypointTiming timing : timings) {
+			long[] totals = keyTotals.computeIfAbsent(timing.getKey(), ignore -> new long[2]);
+			totals[0] += timing.getTotalTime();
+			totals[1]++;
+			total += timing.getTotalTime();
+		}
+
+		StringBuilder sb = new StringBuilder("Entrypoint timings:");
+		sb.append(String.format("%n%.1f ms for %d entrypoint keys", total / 1e6, keyTotals.size()));
+
+		List<Map.Entry<String, long[]>> keys = new ArrayList<>(keyTotals.entrySet());
+		keys.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed());
+
+		sb.append(String.format("%nKeys:"));
+
+		for (Map.Entry<String, long[]> entry : keys) {
+			sb.append(String.format("%n\t- %s: %.2f ms for %d mods", entry.getKey(), entry.getValue()[0] / 1e6, entry.getValue()[1]));
+		}
+
+		sb.append(String.format("%nTop mods:"));
+
+		for (int i = 0, max = Math.min(REPORTED_ENTRIES, timings.size()); i < max; i++) {
+			EntrypointTiming timing = timings.get(i);
+
+			sb.append(String.format("%n\t- %s (%s): %.2f ms (instantiation %.2f ms, invocation %.2f ms)",
+					timing.getProvider().getMetadata().getId(), timing.getKey(), timing.getTotalTime() / 1e6,
+					timing.getInstantiationTime() / 1e6, timing.getInvocationTime() / 1e6));
+		}
+
+		Log.info(LogCategory.ENTRYPOINT, sb.toString());
+	}
+
+	private static final class Accumulator {
+		final String key;
+		final ModContainer mod;
+		int invocations;
+		long instantiationTime;
+		long invocationTime;
+
+		Accumulator(String key, ModContainer mod) {
+			this.key = key;
+			this.mod = mod;
+		}
+
+		synchronized void addInstantiation(long time) {
+			instantiationTime += time;
+		}
+
+		synchronized void addInvocation(long time) {
+			invocations++;
+			invocationTime += time;
+		}
+
+		synchronized Timing snapshot() {
+			return new Timing(key, mod, invocations, instantiationTime, invocationTime);
+		}
+	}
+
+	private static final class Timing implements EntrypointTiming {
+		private final String key;
+		private final ModContainer mod;
+		private final int invocations;
+		private final long instantiationTime;
+		private final long invocationTime;
+
+		Timing(String key, ModContainer mod, int invocations, long instantiationTime, long invocationTime) {
+			this.key = key;
+			this.mod = mod;
+			this.invocations = invocations;
+			this.instantiationTime = instantiationTime;
+			this.invocationTime = invocationTime;
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public ModContainer getProvider() {
+			return mod;
+		}
+
+		@Override
+		public int getInvocationCount() {
+			return invocations;
+		}
+
+		@Override
+		public long getInstantiationTime() {
+			return instantiationTime;
+		}
+
+		@Override
+		public long getInvocationTime() {
+			return invocationTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s->%s: %d ns instantiation, %d ns invocation", mod.getMetadata().getId(), key, instantiationTime, invocationTime);
+		}
+	}
+}
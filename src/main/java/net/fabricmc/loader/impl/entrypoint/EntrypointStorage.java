@@ -19,9 +19,9 @@ package net.fabricmc.loader.impl.entrypoint;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.fabricmc.loader.api.EntrypointException;
 import net.fabricmc.loader.api.LanguageAdapter;
@@ -52,7 +52,7 @@ public final class EntrypointStorage {
 		private final ModContainerImpl mod;
 		private final String languageAdapter;
 		private final String value;
-		private Object object;
+		private volatile Object object;
 
 		private OldEntry(ModContainerImpl mod, String languageAdapter, String value) {
 			this.mod = mod;
@@ -67,10 +67,21 @@ public final class EntrypointStorage {
 
 		@SuppressWarnings({ "unchecked" })
 		@Override
-		public synchronized <T> T getOrCreate(Class<T> type) throws Exception {
+		public <T> T getOrCreate(Class<T> type) throws Exception {
+			Object object = this.object;
+
 			if (object == null) {
-				net.fabricmc.loader.language.LanguageAdapter adapter = (net.fabricmc.loader.language.LanguageAdapter) Class.forName(languageAdapter, true, FabricLauncherBase.getLauncher().getTargetClassLoader()).getConstructor().newInstance();
-				object = adapter.createInstance(value, options);
+				synchronized (this) {
+					object = this.object;
+
+					if (object == null) {
+						long startTime = System.nanoTime();
+						net.fabricmc.loader.language.LanguageAdapter adapter = (net.fabricmc.loader.language.LanguageAdapter) Class.forName(languageAdapter, true, FabricLauncherBase.getLauncher().getTargetClassLoader()).getConstructor().newInstance();
+						this.object = object = adapter.createInstance(value, options);
+						// shared by main, client and server, main is the first to create it
+						EntrypointProfiler.recordInstantiation("main", mod, value, System.nanoTime() - startTime);
+					}
+				}
 			}
 
 			if (object == null || !type.isAssignableFrom(object.getClass())) {
@@ -97,16 +108,18 @@ public final class EntrypointStorage {
 	}
 
 	private static final class NewEntry implements Entry {
+		private final String key;
 		private final ModContainerImpl mod;
 		private final LanguageAdapter adapter;
 		private final String value;
 		private final Map<Class<?>, Object> instanceMap;
 
-		NewEntry(ModContainerImpl mod, LanguageAdapter adapter, String value) {
+		NewEntry(String key, ModContainerImpl mod, LanguageAdapter adapter, String value) {
+			this.key = key;
 			this.mod = mod;
 			this.adapter = adapter;
 			this.value = value;
-			this.instanceMap = new IdentityHashMap<>(1);
+			this.instanceMap = new ConcurrentHashMap<>(2);
 		}
 
 		@Override
@@ -116,15 +129,23 @@ public final class EntrypointStorage {
 
 		@SuppressWarnings("unchecked")
 		@Override
-		public synchronized <T> T getOrCreate(Class<T> type) throws Exception {
-			// this impl allows reentrancy (unlike computeIfAbsent)
-			T ret = (T) instanceMap.get(type);
+		public <T> T getOrCreate(Class<T> type) throws Exception {
+			T ret = (T) instanceMap.get(type); // lock-free once created
 
 			if (ret == null) {
-				ret = adapter.create(mod, value, type);
-				assert ret != null;
-				T prev = (T) instanceMap.putIfAbsent(type, ret);
-				if (prev != null) ret = prev;
+				synchronized (this) {
+					// this impl allows reentrancy (unlike computeIfAbsent)
+					ret = (T) instanceMap.get(type);
+
+					if (ret == null) {
+						long startTime = System.nanoTime();
+						ret = adapter.create(mod, value, type);
+						EntrypointProfiler.recordInstantiation(key, mod, value, System.nanoTime() - startTime);
+						assert ret != null;
+						T prev = (T) instanceMap.putIfAbsent(type, ret);
+						if (prev != null) ret = prev;
+					}
+				}
 			}
 
 			return ret;
@@ -146,12 +167,42 @@ public final class EntrypointStorage {
 		}
 	}
 
-	private final Map<String, List<Entry>> entryMap = new HashMap<>();
+	/**
+	 * Entries of a key with the memoized results per requested type.
+	 */
+	private static final class Lookup {
+		final List<Entry> entries;
+		final Map<Class<?>, List<?>> entrypoints = new ConcurrentHashMap<>(2);
+		final Map<Class<?>, List<?>> containers = new ConcurrentHashMap<>(2);
+
+		Lookup(List<Entry> entries) {
+			this.entries = entries;
+		}
+	}
+
+	private final Map<String, List<Entry>> entryMap = new HashMap<>(); // only used until frozen
+	private volatile Map<String, Lookup> frozenMap; // read-only once set
 
 	private List<Entry> getOrCreateEntries(String key) {
+		if (frozenMap != null) throw new IllegalStateException("entrypoint storage is already frozen");
+
 		return entryMap.computeIfAbsent(key, (z) -> new ArrayList<>());
 	}
 
+	/**
+	 * Finish registering entries, the lookups are lock-free and memoized afterwards.
+	 */
+	public void freeze() {
+		Map<String, Lookup> map = new HashMap<>(entryMap.size() * 2);
+
+		for (Map.Entry<String, List<Entry>> entry : entryMap.entrySet()) {
+			map.put(entry.getKey(), new Lookup(Collections.unmodifiableList(new ArrayList<>(entry.getValue()))));
+		}
+
+		frozenMap = map;
+		entryMap.clear();
+	}
+
 	public void addDeprecated(ModContainerImpl modContainer, String adapter, String value) throws ClassNotFoundException, LanguageAdapterException {
 		Log.debug(LogCategory.ENTRYPOINT, "Registering 0.3.x old-style initializer %s for mod %s", value, modContainer.getMetadata().getId());
 		OldEntry oe = new OldEntry(modContainer, adapter, value);
@@ -167,17 +218,38 @@ public final class EntrypointStorage {
 
 		Log.debug(LogCategory.ENTRYPOINT, "Registering new-style initializer %s for mod %s (key %s)", metadata.getValue(), modContainer.getMetadata().getId(), key);
 		getOrCreateEntries(key).add(new NewEntry(
-				modContainer, adapterMap.get(metadata.getAdapter()), metadata.getValue()
+				key, modContainer, adapterMap.get(metadata.getAdapter()), metadata.getValue()
 				));
 	}
 
 	public boolean hasEntrypoints(String key) {
-		return entryMap.containsKey(key);
+		Map<String, Lookup> frozenMap = this.frozenMap;
+
+		return frozenMap != null ? frozenMap.containsKey(key) : entryMap.containsKey(key);
 	}
 
-	@SuppressWarnings("deprecation")
+	/**
+	 * Get the entrypoint instances of a key, memoized as an unmodifiable list once frozen and successfully created.
+	 */
+	@SuppressWarnings("unchecked")
 	public <T> List<T> getEntrypoints(String key, Class<T> type) {
-		List<Entry> entries = entryMap.get(key);
+		Map<String, Lookup> frozenMap = this.frozenMap;
+		if (frozenMap == null) return createEntrypoints(key, type, entryMap.get(key));
+
+		Lookup lookup = frozenMap.get(key);
+		if (lookup == null) return Collections.emptyList();
+
+		List<T> ret = (List<T>) lookup.entrypoints.get(type);
+		if (ret != null) return ret;
+
+		ret = createEntrypoints(key, type, lookup.entries);
+		List<T> prev = (List<T>) lookup.entrypoints.putIfAbsent(type, ret);
+
+		return prev != null ? prev : ret;
+	}
+
+	@SuppressWarnings("deprecation")
+	private <T> List<T> createEntrypoints(String key, Class<T> type, List<Entry> entries) {
 		if (entries == null) return Collections.emptyList();
 
 		EntrypointException exception = null;
@@ -203,12 +275,31 @@ public final class EntrypointStorage {
 			throw exception;
 		}
 
-		return results;
+		return Collections.unmodifiableList(results);
 	}
 
-	@SuppressWarnings("deprecation")
+	/**
+	 * Get the entrypoint containers of a key, memoized as an unmodifiable list once frozen and successfully created.
+	 */
+	@SuppressWarnings("unchecked")
 	public <T> List<EntrypointContainer<T>> getEntrypointContainers(String key, Class<T> type) {
-		List<Entry> entries = entryMap.get(key);
+		Map<String, Lookup> frozenMap = this.frozenMap;
+		if (frozenMap == null) return createEntrypointContainers(key, type, entryMap.get(key));
+
+		Lookup lookup = frozenMap.get(key);
+		if (lookup == null) return Collections.emptyList();
+
+		List<EntrypointContainer<T>> ret = (List<EntrypointContainer<T>>) lookup.containers.get(type);
+		if (ret != null) return ret;
+
+		ret = createEntrypointContainers(key, type, lookup.entries);
+		List<EntrypointContainer<T>> prev = (List<EntrypointContainer<T>>) lookup.containers.putIfAbsent(type, ret);
+
+		return prev != null ? prev : ret;
+	}
+
+	@SuppressWarnings("deprecation")
+	private <T> List<EntrypointContainer<T>> createEntrypointContainers(String key, Class<T> type, List<Entry> entries) {
 		if (entries == null) return Collections.emptyList();
 
 		List<EntrypointContainer<T>> results = new ArrayList<>(entries.size());
@@ -241,7 +332,7 @@ public final class EntrypointStorage {
 
 		if (exc != null) throw exc;
 
-		return results;
+		return Collections.unmodifiableList(results);
 	}
 
 	@SuppressWarnings("unchecked") // return value allows "throw" declaration to end method
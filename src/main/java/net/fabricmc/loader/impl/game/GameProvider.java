@@ -18,6 +18,7 @@ package net.fabricmc.loader.impl.game;
 
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -26,6 +27,7 @@ import net.fabricmc.api.Environment;
 import net.fabricmc.loader.api.metadata.ModMetadata;
 import net.fabricmc.loader.impl.game.patch.GameTransformer;
 import net.fabricmc.loader.impl.launch.FabricLauncher;
+import net.fabricmc.loader.impl.transformer.ClassTransformer;
 import net.fabricmc.loader.impl.util.Arguments;
 import net.fabricmc.loader.impl.util.LoaderUtil;
 import net.fabricmc.loader.impl.util.SystemProperties;
@@ -89,6 +91,13 @@ public interface GameProvider { // name directly referenced in net.fabricmc.load
 		return LoaderUtil.hasAwtSupport();
 	}
 
+	/**
+	 * Get the game specific class transformers, applied after the {@link BuiltinTransform builtin transforms}.
+	 */
+	default Collection<ClassTransformer> getClassTransformers() {
+		return Collections.emptyList();
+	}
+
 	class BuiltinMod {
 		public BuiltinMod(List<Path> paths, ModMetadata metadata) {
 			Objects.requireNonNull(paths, "null paths");
@@ -42,8 +42,10 @@ import org.jetbrains.annotations.Nullable;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.impl.FabricLoaderImpl;
 import net.fabricmc.loader.impl.FormattedException;
+import net.fabricmc.loader.impl.game.patch.GameTransformer;
 import net.fabricmc.loader.impl.launch.FabricLauncher;
 import net.fabricmc.loader.impl.launch.MappingConfiguration;
+import net.fabricmc.loader.impl.launch.knot.Knot;
 import net.fabricmc.loader.impl.util.LoaderUtil;
 import net.fabricmc.loader.impl.util.SystemProperties;
 import net.fabricmc.loader.impl.util.UrlConversionException;
@@ -208,6 +210,17 @@ public final class GameProviderHelper {
 	private static boolean emittedInfo = false;
 
 	public static Map<String, Path> deobfuscate(Map<String, Path> inputFileMap, String sourceNamespace, String gameId, String gameVersion, Path gameDir, FabricLauncher launcher) {
+		return deobfuscate(inputFileMap, sourceNamespace, gameId, gameVersion, gameDir, launcher, null);
+	}
+
+	/**
+	 * Remap the game jars to the runtime namespace, reusing previously remapped jars if available.
+	 *
+	 * <p>If lazy remapping is enabled and a transformer is supplied, missing remapped jars are not created up front.
+	 * The input jars are returned as-is instead and the transformer gets a {@link LazyGameRemapper} to supply the game
+	 * classes as they are being loaded.
+	 */
+	public static Map<String, Path> deobfuscate(Map<String, Path> inputFileMap, String sourceNamespace, String gameId, String gameVersion, Path gameDir, FabricLauncher launcher, @Nullable GameTransformer transformer) {
 		Log.debug(LogCategory.GAME_REMAP, "Requesting deobfuscation of %s", inputFileMap);
 
 		MappingConfiguration mappingConfig = launcher.getMappingConfiguration();
@@ -287,6 +300,26 @@ public final class GameProviderHelper {
 			return ret;
 		}
 
+		if (transformer != null && launcher instanceof Knot && SystemProperties.isSet(SystemProperties.LAZY_GAME_REMAP)) {
+			Log.debug(LogCategory.GAME_REMAP, "Remapping game classes on demand");
+
+			LazyGameRemapper lazyRemapper;
+
+			try {
+				lazyRemapper = new LazyGameRemapper(inputFiles, mappingConfig.getMappingTable(), sourceNamespace, targetNamespace);
+			} catch (IOException e) {
+				throw new RuntimeException("error opening game jars "+inputFiles, e);
+			}
+
+			transformer.setLazyRemapper(lazyRemapper);
+
+			if (!System.getProperty(SystemProperties.LAZY_GAME_REMAP).equalsIgnoreCase("nocache")) {
+				fillCacheAsync(deobfJarDir, inputFiles, outputFiles, tmpFiles, mappingConfig.getMappings(), sourceNamespace, targetNamespace, launcher, lazyRemapper);
+			}
+
+			return inputFileMap;
+		}
+
 		Log.debug(LogCategory.GAME_REMAP, "Fabric mapping file detected, applying...");
 
 		if (!emittedInfo) {
@@ -304,6 +337,38 @@ public final class GameProviderHelper {
 		return ret;
 	}
 
+	private static void fillCacheAsync(Path deobfJarDir, List<Path> inputFiles, List<Path> outputFiles, List<Path> tmpFiles,
+			MappingTree mappings, String sourceNamespace, String targetNamespace, FabricLauncher launcher, LazyGameRemapper lazyRemapper) {
+		Thread thread = new Thread(() -> {
+			try {
+				Files.createDirectories(deobfJarDir);
+				deobfuscate0(inputFiles, outputFiles, tmpFiles, mappings, sourceNamespace, targetNamespace, launcher);
+				Log.debug(LogCategory.GAME_REMAP, "Remapped jar cache filled: %s", outputFiles);
+
+				try { // read the remaining classes from the remapped jars, releasing the input jars
+					lazyRemapper.useRemappedJars(outputFiles);
+				} catch (IOException e) {
+					Log.warn(LogCategory.GAME_REMAP, "Error switching to the remapped game jars", e);
+				}
+			} catch (Throwable t) {
+				Log.warn(LogCategory.GAME_REMAP, "Error filling the remapped jar cache", t);
+
+				for (Path tmpFile : tmpFiles) {
+					try {
+						Files.deleteIfExists(tmpFile);
+					} catch (IOException e) {
+						// pass
+					}
+				}
+			}
+		}, "Fabric Game Remap");
+
+		// the cache mainly serves the next launch, don't compete with the game or keep it alive
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
 	private static Path getDeobfJarDir(Path gameDir, String gameId, String gameVersion) {
 		Path ret = gameDir.resolve(FabricLoaderImpl.CACHE_DIR_NAME).resolve(FabricLoaderImpl.REMAPPED_JARS_DIR_NAME);
 		StringBuilder versionDirName = new StringBuilder();
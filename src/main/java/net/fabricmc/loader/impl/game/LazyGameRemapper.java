@@ -0,0 +1,532 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.game;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.MethodRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.util.LoaderUtil;
+import net.fabricmc.loader.impl.util.mappings.MappingTable;
+
+/**
+ * Remaps game classes one at a time as they are requested, as an alternative to remapping the whole game jars up front.
+ *
+ * <p>Member mappings are resolved through the class hierarchy within the input jars, mirroring the propagation done by
+ * tiny-remapper. Classes are exposed under their target namespace names only, the source namespace names of renamed
+ * classes are hidden. Names are looked up through the {@link MappingTable}, the mapping tree can be released.
+ *
+ * <p>Once fully remapped jars become available, see {@link #useRemappedJars}, classes are read from them directly and
+ * the input jars get closed.
+ */
+public final class LazyGameRemapper {
+	private static final ClassInfo MISSING_CLASS = new ClassInfo(null, new String[0], Collections.emptyMap());
+
+	private final List<Path> inputFiles;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock(); // guards switching and closing the jars
+	private List<ZipFile> zipFiles; // input jars, or the remapped jars if remapped is set
+	private boolean remapped;
+	private final MappingTable mappings;
+	private final int srcNs;
+	private final int dstNs;
+	private final Remapper remapper = new GameRemapper();
+	private final Map<String, String> classNames = new ConcurrentHashMap<>();
+	private final Map<String, String> srcClassNames = new ConcurrentHashMap<>();
+	private final Map<String, String> memberNames = new ConcurrentHashMap<>();
+	private final Map<String, ClassInfo> classInfos = new ConcurrentHashMap<>();
+
+	public LazyGameRemapper(List<Path> inputFiles, MappingTable mappings, String sourceNamespace, String targetNamespace) throws IOException {
+		this.inputFiles = new ArrayList<>(inputFiles.size());
+		this.mappings = mappings;
+		this.srcNs = mappings.getNamespaceId(sourceNamespace);
+		this.dstNs = mappings.getNamespaceId(targetNamespace);
+
+		if (srcNs < 0 || dstNs < 0) {
+			throw new IllegalArgumentException("missing namespace "+sourceNamespace+" or "+targetNamespace);
+		}
+
+		for (Path path : inputFiles) {
+			this.inputFiles.add(LoaderUtil.normalizeExistingPath(path));
+		}
+
+		this.zipFiles = openZipFiles(this.inputFiles);
+	}
+
+	/**
+	 * Serve the classes from the fully remapped jars from now on and close the input jars.
+	 *
+	 * @param remappedFiles remapped jars in the same order as the input jars
+	 */
+	public void useRemappedJars(List<Path> remappedFiles) throws IOException {
+		List<ZipFile> newZipFiles = openZipFiles(remappedFiles);
+		List<ZipFile> oldZipFiles;
+
+		lock.writeLock().lock();
+
+		try {
+			oldZipFiles = zipFiles;
+			zipFiles = newZipFiles;
+			remapped = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		// only needed for remapping
+		memberNames.clear();
+		classInfos.clear();
+
+		closeZipFiles(oldZipFiles);
+	}
+
+	private static List<ZipFile> openZipFiles(List<Path> files) throws IOException {
+		List<ZipFile> ret = new ArrayList<>(files.size());
+
+		try {
+			for (Path file : files) {
+				ret.add(new ZipFile(file.toFile()));
+			}
+		} catch (IOException e) {
+			try {
+				closeZipFiles(ret);
+			} catch (IOException f) {
+				e.addSuppressed(f);
+			}
+
+			throw e;
+		}
+
+		return ret;
+	}
+
+	private static void closeZipFiles(List<ZipFile> zipFiles) throws IOException {
+		IOException exc = null;
+
+		for (ZipFile zf : zipFiles) {
+			try {
+				zf.close();
+			} catch (IOException e) {
+				if (exc == null) {
+					exc = e;
+				} else {
+					exc.addSuppressed(e);
+				}
+			}
+		}
+
+		if (exc != null) throw exc;
+	}
+
+	/**
+	 * Get the remapped class file for a class in the target namespace.
+	 *
+	 * @param name binary class name in the target namespace, e.g. {@code net.minecraft.class_1234}
+	 * @return remapped class bytes or null if the class isn't part of the input jars
+	 */
+	public byte[] getClassBytes(String name) throws IOException {
+		String srcName = getSrcName(name);
+		if (srcName == null) return null;
+
+		lock.readLock().lock();
+
+		try {
+			if (remapped) return readClass(name.replace('.', '/'));
+
+			byte[] data = readClass(srcName);
+			if (data == null) return null;
+
+			ClassReader reader = new ClassReader(data);
+			ClassWriter writer = new ClassWriter(0);
+			reader.accept(new GameClassRemapper(writer), 0);
+
+			return writer.toByteArray();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the input jar supplying a class in the target namespace.
+	 *
+	 * @param name binary class name in the target namespace
+	 * @return normalized input jar path or null if the class isn't part of the input jars
+	 */
+	public @Nullable Path getOrigin(String name) {
+		String srcName = getSrcName(name);
+		if (srcName == null) return null;
+
+		int idx = findSrcClass(srcName);
+
+		return idx >= 0 ? inputFiles.get(idx) : null;
+	}
+
+	/**
+	 * Determine whether a class name refers to a renamed class in its source namespace form.
+	 *
+	 * <p>These classes are present in the input jars under this name, but must not be loaded without remapping.
+	 */
+	public boolean isHiddenClass(String name) {
+		String internalName = name.replace('.', '/');
+
+		return !mapClassName(internalName).equals(internalName) && findSrcClass(internalName) >= 0;
+	}
+
+	private @Nullable String getSrcName(String name) {
+		String internalName = name.replace('.', '/');
+		String srcName = unmapClassName(internalName);
+
+		// the name may be the source name of a class that got renamed to something else
+		return mapClassName(srcName).equals(internalName) ? srcName : null;
+	}
+
+	private int findSrcClass(String srcName) {
+		lock.readLock().lock();
+
+		try {
+			String fileName = (remapped ? mapClassName(srcName) : srcName).concat(".class");
+
+			for (int i = 0; i < zipFiles.size(); i++) {
+				if (zipFiles.get(i).getEntry(fileName) != null) return i;
+			}
+
+			return -1;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Read a class file from the current jars, the caller has to hold the read lock.
+	 *
+	 * @param name internal name in the jars' namespace
+	 */
+	private byte[] readClass(String name) throws IOException {
+		String fileName = name.concat(".class");
+
+		for (ZipFile zf : zipFiles) {
+			ZipEntry entry = zf.getEntry(fileName);
+			if (entry == null) continue;
+
+			try (InputStream is = zf.getInputStream(entry)) {
+				return readFully(is, entry.getSize());
+			}
+		}
+
+		return null;
+	}
+
+	private static byte[] readFully(InputStream is, long size) throws IOException {
+		if (size < 0 || size > Integer.MAX_VALUE) {
+			ByteArrayOutputStream os = new ByteArrayOutputStream(32768);
+			byte[] buffer = new byte[8192];
+			int len;
+
+			while ((len = is.read(buffer)) > 0) {
+				os.write(buffer, 0, len);
+			}
+
+			return os.toByteArray();
+		}
+
+		byte[] ret = new byte[(int) size];
+		int pos = 0;
+		int len;
+
+		while (pos < ret.length && (len = is.read(ret, pos, ret.length - pos)) > 0) {
+			pos += len;
+		}
+
+		if (pos != ret.length) throw new IOException("truncated class file");
+
+		return ret;
+	}
+
+	String mapClassName(String name) {
+		String ret = classNames.get(name);
+		if (ret != null) return ret;
+
+		ret = mappings.getClassName(name, srcNs, dstNs);
+
+		if (ret == null) {
+			int pos = name.lastIndexOf('$');
+
+			if (pos > 0) { // unmapped inner class, keep following the outer class
+				ret = mapClassName(name.substring(0, pos)).concat(name.substring(pos));
+			} else {
+				ret = name;
+			}
+		}
+
+		classNames.put(name, ret);
+
+		return ret;
+	}
+
+	String unmapClassName(String name) {
+		String ret = srcClassNames.get(name);
+		if (ret != null) return ret;
+
+		ret = mappings.getClassName(name, dstNs, srcNs);
+
+		if (ret == null) {
+			int pos = name.lastIndexOf('$');
+
+			if (pos > 0) {
+				ret = unmapClassName(name.substring(0, pos)).concat(name.substring(pos));
+			} else {
+				ret = name;
+			}
+		}
+
+		srcClassNames.put(name, ret);
+
+		return ret;
+	}
+
+	private String mapMemberName(String owner, String name, String desc, boolean isMethod) {
+		String key = owner.concat("/").concat(name).concat(";").concat(desc);
+		String ret = memberNames.get(key);
+		if (ret != null) return ret;
+
+		ret = isMethod ? resolveMethodName(owner, name, desc, false) : resolveFieldName(owner, name, desc, false);
+		if (ret == null) ret = name;
+
+		memberNames.put(key, ret);
+
+		return ret;
+	}
+
+	private @Nullable String resolveMethodName(String owner, String name, String desc, boolean inherited) {
+		ClassInfo info = getClassInfo(owner);
+		if (info == null) return null; // not a game class, can't be mapped
+
+		Integer access = info.members.get(name.concat(";").concat(desc));
+		boolean invisible = inherited && access != null && (access & Opcodes.ACC_PRIVATE) != 0;
+
+		if (!invisible) {
+			String ret = getMappedName(owner, name, desc, true);
+			if (ret != null) return ret;
+
+			// own unmapped non-virtual declaration, can't inherit a mapping
+			if (access != null && (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC)) != 0) return null;
+		}
+
+		if (info.superName != null) {
+			String ret = resolveMethodName(info.superName, name, desc, true);
+			if (ret != null) return ret;
+		}
+
+		for (String itf : info.interfaces) {
+			String ret = resolveMethodName(itf, name, desc, true);
+			if (ret != null) return ret;
+		}
+
+		return null;
+	}
+
+	private @Nullable String resolveFieldName(String owner, String name, String desc, boolean inherited) {
+		ClassInfo info = getClassInfo(owner);
+		if (info == null) return null;
+
+		Integer access = info.members.get(name.concat(";").concat(desc));
+		boolean invisible = inherited && access != null && (access & Opcodes.ACC_PRIVATE) != 0;
+
+		if (!invisible) {
+			String ret = getMappedName(owner, name, desc, false);
+			if (ret != null) return ret;
+			if (access != null) return null; // declared here without mapping
+		}
+
+		// field resolution order: interfaces before the super class
+		for (String itf : info.interfaces) {
+			String ret = resolveFieldName(itf, name, desc, true);
+			if (ret != null) return ret;
+		}
+
+		if (info.superName != null) {
+			return resolveFieldName(info.superName, name, desc, true);
+		}
+
+		return null;
+	}
+
+	private @Nullable String getMappedName(String owner, String name, String desc, boolean isMethod) {
+		return isMethod ? mappings.mapMethodName(owner, name, desc, srcNs, dstNs) : mappings.mapFieldName(owner, name, desc, srcNs, dstNs);
+	}
+
+	private @Nullable ClassInfo getClassInfo(String name) {
+		ClassInfo ret = classInfos.get(name);
+
+		if (ret == null) {
+			ret = readClassInfo(name);
+			classInfos.put(name, ret);
+		}
+
+		return ret != MISSING_CLASS ? ret : null;
+	}
+
+	private ClassInfo readClassInfo(String name) {
+		byte[] data;
+
+		try {
+			data = readClass(name); // only used while remapping, under the read lock
+		} catch (IOException e) {
+			throw new RuntimeException("error reading game class "+name, e);
+		}
+
+		if (data == null) return MISSING_CLASS;
+
+		ClassReader reader = new ClassReader(data);
+		Map<String, Integer> members = new HashMap<>();
+
+		reader.accept(new ClassVisitor(FabricLoaderImpl.ASM_VERSION) {
+			@Override
+			public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+				members.put(name.concat(";").concat(descriptor), access);
+				return null;
+			}
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+				members.put(name.concat(";").concat(descriptor), access);
+				return null;
+			}
+		}, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+		return new ClassInfo(reader.getSuperName(), reader.getInterfaces(), members);
+	}
+
+	private static final class ClassInfo {
+		final String superName;
+		final String[] interfaces;
+		final Map<String, Integer> members;
+
+		ClassInfo(String superName, String[] interfaces, Map<String, Integer> members) {
+			this.superName = superName;
+			this.interfaces = interfaces;
+			this.members = members;
+		}
+	}
+
+	private final class GameRemapper extends Remapper {
+		GameRemapper() {
+			super(FabricLoaderImpl.ASM_VERSION);
+		}
+
+		@Override
+		public String map(String internalName) {
+			return mapClassName(internalName);
+		}
+
+		@Override
+		public String mapMethodName(String owner, String name, String descriptor) {
+			if (name.startsWith("<") || owner.startsWith("[")) return name;
+
+			return mapMemberName(owner, name, descriptor, true);
+		}
+
+		@Override
+		public String mapFieldName(String owner, String name, String descriptor) {
+			return mapMemberName(owner, name, descriptor, false);
+		}
+
+		@Override
+		public String mapRecordComponentName(String owner, String name, String descriptor) {
+			return mapMemberName(owner, name, descriptor, false);
+		}
+
+		@Override
+		public String mapInvokeDynamicMethodName(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+			// lambdas and method references implement the method named by the indy call site
+			if (bootstrapMethodHandle.getOwner().equals("java/lang/invoke/LambdaMetafactory")
+					&& bootstrapMethodArguments.length > 0
+					&& bootstrapMethodArguments[0] instanceof Type) {
+				return mapMethodName(Type.getReturnType(descriptor).getInternalName(), name, ((Type) bootstrapMethodArguments[0]).getDescriptor());
+			}
+
+			return name;
+		}
+	}
+
+	private final class GameClassRemapper extends ClassRemapper {
+		GameClassRemapper(ClassVisitor classVisitor) {
+			super(FabricLoaderImpl.ASM_VERSION, classVisitor, LazyGameRemapper.this.remapper);
+		}
+
+		@Override
+		public void visitSource(String source, String debug) {
+			// rebuild the source file name from the remapped outermost class name, like the full jar remapping does
+			String name = remapper.map(className);
+			int start = name.lastIndexOf('/') + 1;
+			int end = name.indexOf('$', start);
+
+			super.visitSource(name.substring(start, end >= 0 ? end : name.length()).concat(".java"), debug);
+		}
+
+		@Override
+		protected MethodVisitor createMethodRemapper(MethodVisitor methodVisitor) {
+			return new MethodRemapper(api, methodVisitor, remapper) {
+				@Override
+				public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+					// records pass their component names as a single string to ObjectMethods, rebuild it from the remapped getters
+					if (bootstrapMethodHandle.getOwner().equals("java/lang/runtime/ObjectMethods")
+							&& bootstrapMethodArguments.length >= 2
+							&& bootstrapMethodArguments[1] instanceof String) {
+						StringBuilder names = new StringBuilder();
+
+						for (int i = 2; i < bootstrapMethodArguments.length; i++) {
+							if (!(bootstrapMethodArguments[i] instanceof Handle)) continue;
+
+							Handle getter = (Handle) bootstrapMethodArguments[i];
+							if (names.length() > 0) names.append(';');
+							names.append(remapper.mapFieldName(getter.getOwner(), getter.getName(), getter.getDesc()));
+						}
+
+						bootstrapMethodArguments = bootstrapMethodArguments.clone();
+						bootstrapMethodArguments[1] = names.toString();
+					}
+
+					super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+				}
+			};
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
@@ -120,4 +121,27 @@ public abstract class GamePatch {
 	}
 
 	public abstract void process(FabricLauncher launcher, Function<String, ClassNode> classSource, Consumer<ClassNode> classEmitter);
+
+	/**
+	 * Whether the output of {@link #process} may be persisted by {@link GameTransformer} and reused instead of
+	 * processing again.
+	 *
+	 * <p>This requires the emitted classes to only depend on the game jars, the environment, the runtime namespace, the
+	 * launcher and the loader version. Any other side effect has to be captured by {@link #getCacheState}.
+	 */
+	public boolean isCacheable() {
+		return false;
+	}
+
+	/**
+	 * Get the state that has to be restored through {@link #restoreCacheState} when the patch is served from cache.
+	 */
+	public @Nullable String getCacheState() {
+		return null;
+	}
+
+	/**
+	 * Restore the side effects of {@link #process} from the state returned by {@link #getCacheState}.
+	 */
+	public void restoreCacheState(FabricLauncher launcher, @Nullable String state) { }
 }
@@ -16,32 +16,53 @@
 
 package net.fabricmc.loader.impl.game.patch;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.zip.ZipError;
 
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.game.LazyGameRemapper;
 import net.fabricmc.loader.impl.launch.FabricLauncher;
+import net.fabricmc.loader.impl.launch.MappingConfiguration;
 import net.fabricmc.loader.impl.util.ExceptionUtil;
 import net.fabricmc.loader.impl.util.LoaderUtil;
 import net.fabricmc.loader.impl.util.SimpleClassPath;
 import net.fabricmc.loader.impl.util.SimpleClassPath.CpEntry;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.ZipUtil;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
 
 public class GameTransformer {
+	private static final int CACHE_MAGIC = 0x46475031; // FGP1
+	private static final boolean DISABLE_CACHE = SystemProperties.isSet(SystemProperties.DEBUG_DISABLE_GAME_PATCH_CACHE);
+
 	private final List<GamePatch> patches;
 	private Map<String, byte[]> patchedClasses;
 	private boolean entrypointsLocated = false;
+	private LazyGameRemapper lazyRemapper;
 
 	public GameTransformer(GamePatch... patches) {
 		this.patches = Arrays.asList(patches);
@@ -59,12 +80,32 @@ public class GameTransformer {
 		patchedClasses.put(key, writer.toByteArray());
 	}
 
+	/**
+	 * Set the remapper supplying game classes on demand, replacing reads from the game jars.
+	 */
+	public void setLazyRemapper(LazyGameRemapper remapper) {
+		this.lazyRemapper = remapper;
+	}
+
+	public @Nullable LazyGameRemapper getLazyRemapper() {
+		return lazyRemapper;
+	}
+
 	public void locateEntrypoints(FabricLauncher launcher, List<Path> gameJars) {
 		if (entrypointsLocated) {
 			return;
 		}
 
-		patchedClasses = new HashMap<>();
+		patchedClasses = new ConcurrentHashMap<>();
+
+		Path cacheFile = getCacheFile();
+		String cacheKey = cacheFile != null ? computeCacheKey(launcher, gameJars) : null;
+
+		if (cacheKey != null && readCache(launcher, cacheFile, cacheKey)) {
+			Log.debug(LogCategory.GAME_PATCH, "Loaded %d patched class%s from cache", patchedClasses.size(), patchedClasses.size() != 1 ? "es" : "");
+			entrypointsLocated = true;
+			return;
+		}
 
 		try (SimpleClassPath cp = new SimpleClassPath(gameJars)) {
 			Map<String, ClassNode> patchedClassNodes = new HashMap<>();
@@ -89,8 +130,146 @@ public class GameTransformer {
 			throw ExceptionUtil.wrap(e);
 		}
 
-		Log.debug(LogCategory.GAME_PATCH, "Patched %d class%s", patchedClasses.size(), patchedClasses.size() != 1 ? "s" : "");
+		Log.debug(LogCategory.GAME_PATCH, "Patched %d class%s", patchedClasses.size(), patchedClasses.size() != 1 ? "es" : "");
 		entrypointsLocated = true;
+
+		if (cacheKey != null) writeCache(cacheFile, cacheKey);
+	}
+
+	private @Nullable Path getCacheFile() {
+		if (DISABLE_CACHE) return null;
+
+		for (GamePatch patch : patches) {
+			if (!patch.isCacheable()) return null;
+		}
+
+		Path gameDir = FabricLoaderImpl.INSTANCE.getGameDir();
+		if (gameDir == null) return null;
+
+		return gameDir.resolve(FabricLoaderImpl.CACHE_DIR_NAME).resolve(FabricLoaderImpl.GAME_PATCH_CACHE_FILE_NAME);
+	}
+
+	/**
+	 * Compute the key identifying the inputs of the patches, the patch set and the game jars' contents.
+	 *
+	 * @return the key or null if a game jar's content can't be identified cheaply
+	 */
+	private @Nullable String computeCacheKey(FabricLauncher launcher, List<Path> gameJars) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			MappingConfiguration mappingConfig = launcher.getMappingConfiguration();
+			List<String> parts = new ArrayList<>();
+			parts.add(FabricLoaderImpl.VERSION);
+			parts.add(launcher.getClass().getName());
+			parts.add(launcher.getEnvironmentType().name());
+			parts.add(launcher.getEntrypoint());
+			parts.add(FabricLoaderImpl.INSTANCE.getGameProvider().getNormalizedGameVersion()); // patches may depend on it, can be overridden
+			parts.add(mappingConfig.getRuntimeNamespace());
+			parts.add(String.valueOf(mappingConfig.getMappingName()));
+			parts.add(String.valueOf(lazyRemapper != null));
+
+			for (GamePatch patch : patches) {
+				parts.add(patch.getClass().getName());
+			}
+
+			for (Path jar : gameJars) {
+				if (!Files.isRegularFile(jar)) return null;
+
+				String hash = ZipUtil.hashCentralDirectory(jar);
+				if (hash == null) return null;
+
+				parts.add(hash);
+			}
+
+			for (String part : parts) {
+				digest.update(part.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+
+			byte[] hash = digest.digest();
+			StringBuilder sb = new StringBuilder(hash.length * 2);
+
+			for (byte b : hash) {
+				sb.append(String.format("%02x", b));
+			}
+
+			return sb.toString();
+		} catch (IOException e) {
+			Log.debug(LogCategory.GAME_PATCH, "Error hashing game jars, not using the patch cache", e);
+			return null;
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private boolean readCache(FabricLauncher launcher, Path file, String key) {
+		if (!Files.isRegularFile(file)) return false;
+
+		String[] states = new String[patches.size()];
+		Map<String, byte[]> classes = new HashMap<>();
+
+		try (DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (is.readInt() != CACHE_MAGIC || !is.readUTF().equals(key) || is.readInt() != states.length) return false;
+
+			for (int i = 0; i < states.length; i++) {
+				states[i] = is.readBoolean() ? is.readUTF() : null;
+			}
+
+			int count = is.readInt();
+
+			for (int i = 0; i < count; i++) {
+				String name = is.readUTF();
+				byte[] data = new byte[is.readInt()];
+				is.readFully(data);
+				classes.put(name, data);
+			}
+		} catch (IOException e) {
+			Log.debug(LogCategory.GAME_PATCH, "Error reading game patch cache %s, patching again", file, e);
+			return false;
+		}
+
+		for (int i = 0; i < states.length; i++) {
+			patches.get(i).restoreCacheState(launcher, states[i]);
+		}
+
+		patchedClasses.putAll(classes);
+
+		return true;
+	}
+
+	private void writeCache(Path file, String key) {
+		try {
+			Files.createDirectories(file.getParent());
+			Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+			try {
+				try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+					os.writeInt(CACHE_MAGIC);
+					os.writeUTF(key);
+					os.writeInt(patches.size());
+
+					for (GamePatch patch : patches) {
+						String state = patch.getCacheState();
+						os.writeBoolean(state != null);
+						if (state != null) os.writeUTF(state);
+					}
+
+					os.writeInt(patchedClasses.size());
+
+					for (Map.Entry<String, byte[]> entry : patchedClasses.entrySet()) {
+						os.writeUTF(entry.getKey());
+						os.writeInt(entry.getValue().length);
+						os.write(entry.getValue());
+					}
+				}
+
+				Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tmpFile);
+			}
+		} catch (IOException e) {
+			Log.debug(LogCategory.GAME_PATCH, "Error writing game patch cache %s", file, e);
+		}
 	}
 
 	private ClassNode readClassNode(SimpleClassPath classpath, String name) {
@@ -100,6 +279,16 @@ public class GameTransformer {
 			return readClass(new ClassReader(data));
 		}
 
+		if (lazyRemapper != null) {
+			try {
+				data = lazyRemapper.getClassBytes(name);
+			} catch (IOException e) {
+				throw new RuntimeException(String.format("error reading %s: %s", name, e), e);
+			}
+
+			return data != null ? readClass(new ClassReader(data)) : null;
+		}
+
 		try {
 			CpEntry entry = classpath.getEntry(LoaderUtil.getClassFileName(name));
 			if (entry == null) return null;
@@ -123,6 +312,15 @@ public class GameTransformer {
 		return patchedClasses.get(className);
 	}
 
+	/**
+	 * Drop the patched data of a class once it got defined, the class can't be transformed again afterwards.
+	 *
+	 * @param className The class name.
+	 */
+	public void releasePatchedClass(String className) {
+		if (patchedClasses != null) patchedClasses.remove(className);
+	}
+
 	private static ClassNode readClass(ClassReader reader) {
 		if (reader == null) return null;
 
@@ -16,11 +16,12 @@
 
 package net.fabricmc.loader.impl.launch;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.spongepowered.asm.launch.MixinBootstrap;
 import org.spongepowered.asm.mixin.FabricUtil;
@@ -28,6 +29,7 @@ import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.Mixins;
 import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
 import org.spongepowered.asm.mixin.transformer.Config;
+import org.spongepowered.asm.service.MixinService;
 
 import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.api.Version;
@@ -40,8 +42,8 @@ import net.fabricmc.loader.impl.launch.knot.MixinServiceKnot;
 import net.fabricmc.loader.impl.launch.knot.MixinServiceKnotBootstrap;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
+import net.fabricmc.loader.impl.util.mappings.MappingTable;
 import net.fabricmc.loader.impl.util.mappings.MixinIntermediaryDevRemapper;
-import net.fabricmc.mappingio.tree.MappingTree;
 
 public final class FabricMixinBootstrap {
 	private FabricMixinBootstrap() { }
@@ -60,13 +62,12 @@ public final class FabricMixinBootstrap {
 
 		if (FabricLauncherBase.getLauncher().isDevelopment()) {
 			MappingConfiguration config = FabricLauncherBase.getLauncher().getMappingConfiguration();
-			MappingTree mappings = config.getMappings();
+			MappingTable mappings = config.getMappingTable();
 			final String modNs = config.getDefaultModDistributionNamespace();
 			String runtimeNs = config.getRuntimeNamespace();
 
 			if (config.hasAnyMappings() && !modNs.equals(runtimeNs)) {
-				List<String> namespaces = new ArrayList<>(mappings.getDstNamespaces());
-				namespaces.add(mappings.getSrcNamespace());
+				List<String> namespaces = mappings.getNamespaces();
 
 				if (namespaces.contains(modNs) && namespaces.contains(runtimeNs)) {
 					System.setProperty("mixin.env.remapRefMap", "true");
@@ -82,6 +83,16 @@ public final class FabricMixinBootstrap {
 			}
 		}
 
+		Set<String> configs = new LinkedHashSet<>();
+
+		for (ModContainerImpl mod : loader.getModsInternal()) {
+			configs.addAll(mod.getMetadata().getMixinConfigs(side));
+		}
+
+		if (MixinService.getService() instanceof MixinServiceKnot) { // only served by Knot's service, skip reading them twice otherwise
+			MixinResourcePrefetcher.prefetch(FabricLauncherBase.getLauncher(), configs);
+		}
+
 		Map<String, ModContainerImpl> configToModMap = new HashMap<>();
 
 		for (ModContainerImpl mod : loader.getModsInternal()) {
@@ -17,18 +17,30 @@
 package net.fabricmc.loader.impl.launch;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.JarURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.jar.Attributes.Name;
 import java.util.jar.Manifest;
@@ -44,6 +56,7 @@ import net.fabricmc.loader.impl.util.SystemProperties;
 import net.fabricmc.loader.impl.util.log.Log;
 import net.fabricmc.loader.impl.util.log.LogCategory;
 import net.fabricmc.loader.impl.util.mappings.FilteringMappingVisitor;
+import net.fabricmc.loader.impl.util.mappings.MappingTable;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.MappingVisitor;
 import net.fabricmc.mappingio.tree.MappingTree;
@@ -51,6 +64,7 @@ import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class MappingConfiguration {
 	private static final boolean FIX_PACKAGE_ACCESS = SystemProperties.isSet(SystemProperties.FIX_PACKAGE_ACCESS);
+	private static final int COMPILED_MAPPINGS_MAGIC = 0x464d4331; // FMC1
 
 	// same ns between client and server
 	public static final String OFFICIAL_NAMESPACE = "official";
@@ -77,6 +91,8 @@ public final class MappingConfiguration {
 	private List<String> namespaces;
 	@Nullable
 	private MemoryMappingTree mappings;
+	@Nullable
+	private MappingTable mappingTable;
 
 	@Nullable
 	public String getGameId() {
@@ -120,7 +136,43 @@ public final class MappingConfiguration {
 		return mappings;
 	}
 
+	/**
+	 * Get the mappings as a compact lookup table, preferably memory mapped from the compiled mapping cache.
+	 *
+	 * <p>Unlike {@link #getMappings()} this doesn't require parsing the mappings if the cache is up to date.
+	 */
+	public MappingTable getMappingTable() {
+		initializeMappings(true);
+
+		if (mappingTable == null) { // not cacheable, compile in memory
+			List<String> namespaces = getNamespaces();
+			mappingTable = MappingTable.read(ByteBuffer.wrap(MappingTable.write(getMappings(), namespaces != null ? namespaces : Collections.emptyList())));
+		}
+
+		return mappingTable;
+	}
+
+	/**
+	 * Drop the parsed mapping tree once startup doesn't need it anymore.
+	 *
+	 * <p>Later lookups are served by {@link #getMappingTable()}, {@link #getMappings()} parses the mappings again if
+	 * it is still invoked.
+	 */
+	public void releaseMappings() {
+		if (!initializedMappings) return;
+
+		getMappingTable(); // compile the table before dropping its source
+		mappings = null;
+		initializedMappings = false;
+	}
+
 	public boolean hasAnyMappings() {
+		initializeMappings(true);
+
+		if (mappingTable != null) {
+			return mappingTable.getClassCount() > 0;
+		}
+
 		MappingTree tree = getMappings();
 
 		return !tree.getClasses().isEmpty();
@@ -169,6 +221,47 @@ public final class MappingConfiguration {
 
 		long time = System.nanoTime();
 		MappingSource source = getMappingSource();
+		String sourceHash = null;
+		byte[] content = null;
+
+		if (!initializedMetadata && (source.url != null || source.path != null && Files.isRegularFile(source.path))) {
+			Path cacheFile = getCompiledMappingsFile();
+
+			if (cacheFile != null) {
+				try {
+					URLConnection connection = source.url != null ? source.url.openConnection() : null;
+
+					if (connection instanceof JarURLConnection && ((JarURLConnection) connection).getJarEntry().getCrc() != -1) { // crc from the zip directory, avoids reading the mappings
+						ZipEntry entry = ((JarURLConnection) connection).getJarEntry();
+						sourceHash = String.format("crc32:%08x:%d", entry.getCrc(), entry.getSize());
+					} else {
+						if (connection != null) {
+							try (InputStream is = connection.getInputStream()) {
+								content = readFully(is);
+							}
+						} else {
+							content = Files.readAllBytes(source.path);
+						}
+
+						sourceHash = "sha1:"+hash(content);
+					}
+				} catch (IOException e) {
+					throw new RuntimeException("Error reading mappings", e);
+				}
+
+				if (loadCompiledMappings(cacheFile, sourceHash)) {
+					initializedMetadata = true;
+					sourceHash = null; // no need to write it again
+					Log.debug(LogCategory.MAPPINGS, "Loading compiled mappings took %.2f ms", (System.nanoTime() - time) * 1e-6);
+
+					if (metaOnly) return;
+				} else {
+					// the cache has to be compiled from the full mappings anyway, avoid reading them twice
+					metaOnly = false;
+				}
+			}
+		}
+
 		MappingVisitor out;
 
 		if (metaOnly) {
@@ -198,7 +291,7 @@ public final class MappingConfiguration {
 					}
 				}
 
-				try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(content != null ? new ByteArrayInputStream(content) : connection.getInputStream(), StandardCharsets.UTF_8))) {
 					if (metaOnly) {
 						namespaces = MappingReader.getNamespaces(reader);
 					} else {
@@ -224,6 +317,132 @@ public final class MappingConfiguration {
 
 		initializedMetadata = true;
 		if (!metaOnly) initializedMappings = true;
+
+		if (sourceHash != null && namespaces != null) {
+			writeCompiledMappings(getCompiledMappingsFile(), sourceHash);
+		}
+	}
+
+	@Nullable
+	private static Path getCompiledMappingsFile() {
+		try {
+			return FabricLoaderImpl.INSTANCE.getGameDir().resolve(FabricLoaderImpl.CACHE_DIR_NAME).resolve(FabricLoaderImpl.COMPILED_MAPPINGS_FILE_NAME);
+		} catch (IllegalStateException e) { // too early access
+			return null;
+		}
+	}
+
+	/**
+	 * Load the compiled mapping cache, including the metadata, if it was compiled from the same source.
+	 */
+	private boolean loadCompiledMappings(Path file, String sourceHash) {
+		if (!Files.isRegularFile(file)) return false;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buf = ByteBuffer.allocate(8);
+			if (channel.read(buf, 0) != buf.capacity() || buf.getInt(0) != COMPILED_MAPPINGS_MAGIC) return false;
+
+			// read the header without mapping the file, this keeps it replaceable on Windows if it's outdated
+			int headerSize = buf.getInt(4);
+			buf = ByteBuffer.allocate(headerSize);
+			if (channel.read(buf, 8) != headerSize) return false;
+
+			DataInputStream header = new DataInputStream(new ByteArrayInputStream(buf.array()));
+			if (!header.readUTF().equals(sourceHash)) return false;
+
+			String gameId = readNullableUtf(header);
+			String gameVersion = readNullableUtf(header);
+			String mappingName = readNullableUtf(header);
+			long tableOffset = 8 + headerSize;
+
+			MappingTable table = MappingTable.read(channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, channel.size() - tableOffset));
+
+			this.gameId = gameId;
+			this.gameVersion = gameVersion;
+			this.mappingName = mappingName;
+			this.namespaces = table.getNamespaces();
+			this.mappingTable = table;
+
+			return true;
+		} catch (IOException | IllegalArgumentException e) {
+			Log.warn(LogCategory.MAPPINGS, "Error reading compiled mappings from %s", file, e);
+			return false;
+		}
+	}
+
+	private void writeCompiledMappings(Path file, String sourceHash) {
+		long time = System.nanoTime();
+		byte[] table = MappingTable.write(mappings, namespaces);
+		mappingTable = MappingTable.read(ByteBuffer.wrap(table));
+		Path tmpFile = file.resolveSibling(file.getFileName().toString()+".tmp");
+
+		try {
+			ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+
+			try (DataOutputStream header = new DataOutputStream(headerBytes)) {
+				header.writeUTF(sourceHash);
+				writeNullableUtf(header, gameId);
+				writeNullableUtf(header, gameVersion);
+				writeNullableUtf(header, mappingName);
+			}
+
+			Files.createDirectories(file.getParent());
+
+			try (DataOutputStream os = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+				os.writeInt(COMPILED_MAPPINGS_MAGIC);
+				os.writeInt(headerBytes.size());
+				headerBytes.writeTo(os);
+				os.write(table);
+			}
+
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Log.debug(LogCategory.MAPPINGS, "Writing compiled mappings took %.2f ms", (System.nanoTime() - time) * 1e-6);
+		} catch (IOException e) {
+			Log.warn(LogCategory.MAPPINGS, "Error writing compiled mappings to %s", file, e);
+
+			try {
+				Files.deleteIfExists(tmpFile);
+			} catch (IOException e2) {
+				// pass
+			}
+		}
+	}
+
+	@Nullable
+	private static String readNullableUtf(DataInputStream is) throws IOException {
+		return is.readBoolean() ? is.readUTF() : null;
+	}
+
+	private static void writeNullableUtf(DataOutputStream os, @Nullable String str) throws IOException {
+		os.writeBoolean(str != null);
+		if (str != null) os.writeUTF(str);
+	}
+
+	private static byte[] readFully(InputStream is) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream(Math.max(is.available(), 32768));
+		byte[] buffer = new byte[8192];
+		int len;
+
+		while ((len = is.read(buffer)) > 0) {
+			os.write(buffer, 0, len);
+		}
+
+		return os.toByteArray();
+	}
+
+	private static String hash(byte[] data) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+
+			for (byte b : digest) {
+				sb.append(String.format("%02x", b & 0xff));
+			}
+
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	private MappingSource getMappingSource() {
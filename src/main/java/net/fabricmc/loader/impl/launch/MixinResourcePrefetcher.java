@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.fabricmc.loader.impl.lib.gson.JsonReader;
+import net.fabricmc.loader.impl.lib.gson.JsonToken;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Reads the Mixin configs and the refmaps they reference in parallel ahead of Mixin requesting them one after another.
+ *
+ * <p>The resources are handed to Mixin through the service's {@code getResourceAsStream} and dropped after having been
+ * served as many times as they are referenced, or by {@link #release} once Mixin selected its configs. Anything not
+ * prefetched is left to the regular lookup.
+ */
+public final class MixinResourcePrefetcher {
+	private static final Map<String, Resource> resources = new ConcurrentHashMap<>();
+
+	private MixinResourcePrefetcher() { }
+
+	static void prefetch(FabricLauncher launcher, Collection<String> configs) {
+		long startTime = System.nanoTime();
+		Map<String, AtomicInteger> refmapUses = new ConcurrentHashMap<>();
+		List<CompletableFuture<?>> futures = new ArrayList<>(configs.size());
+
+		for (String config : configs) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				byte[] data = read(launcher, config);
+				if (data == null) return;
+
+				resources.put(config, new Resource(data, 1));
+
+				String refmap = getRefmap(config, data);
+				if (refmap != null) refmapUses.computeIfAbsent(refmap, ignore -> new AtomicInteger()).incrementAndGet();
+			}));
+		}
+
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+		futures.clear();
+
+		for (Map.Entry<String, AtomicInteger> entry : refmapUses.entrySet()) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				byte[] data = read(launcher, entry.getKey());
+				if (data != null) resources.put(entry.getKey(), new Resource(data, entry.getValue().get()));
+			}));
+		}
+
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+		Log.debug(LogCategory.MIXIN, "Prefetched %d Mixin configs and refmaps in %.1f ms", resources.size(), (System.nanoTime() - startTime) * 1e-6);
+	}
+
+	/**
+	 * Get a prefetched resource.
+	 *
+	 * @return the resource's stream or null if it wasn't prefetched or has been served already
+	 */
+	public static InputStream getResourceAsStream(String name) {
+		if (resources.isEmpty()) return null;
+
+		Resource resource = resources.get(name);
+		if (resource == null) return null;
+
+		if (resource.uses.decrementAndGet() <= 0) resources.remove(name, resource);
+
+		return new ByteArrayInputStream(resource.data);
+	}
+
+	/**
+	 * Drop the resources not served yet, e.g. refmaps of configs Mixin didn't select.
+	 */
+	public static void release() {
+		if (resources.isEmpty()) return;
+
+		Log.debug(LogCategory.MIXIN, "Releasing %d unused prefetched Mixin resources", resources.size());
+		resources.clear();
+	}
+
+	private static byte[] read(FabricLauncher launcher, String name) {
+		try (InputStream is = launcher.getResourceAsStream(name)) {
+			if (is == null) return null;
+
+			ByteArrayOutputStream os = new ByteArrayOutputStream(Math.max(is.available(), 1024));
+			byte[] buffer = new byte[8192];
+			int len;
+
+			while ((len = is.read(buffer)) > 0) {
+				os.write(buffer, 0, len);
+			}
+
+			return os.toByteArray();
+		} catch (IOException e) { // Mixin will retry and report it
+			Log.debug(LogCategory.MIXIN, "Error prefetching %s", name, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Extract the refmap name from a Mixin config.
+	 */
+	private static String getRefmap(String config, byte[] data) {
+		try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+			reader.setLenient(true);
+			if (reader.peek() != JsonToken.BEGIN_OBJECT) return null;
+
+			reader.beginObject();
+
+			while (reader.hasNext()) {
+				if (reader.nextName().equals("refmap") && reader.peek() == JsonToken.STRING) {
+					return reader.nextString();
+				}
+
+				reader.skipValue();
+			}
+		} catch (IOException | RuntimeException e) { // malformed, Mixin will report it
+			Log.debug(LogCategory.MIXIN, "Error reading refmap name from Mixin config %s", config, e);
+		}
+
+		return null;
+	}
+
+	private static final class Resource {
+		final byte[] data;
+		final AtomicInteger uses;
+
+		Resource(byte[] data, int uses) {
+			this.data = data;
+			this.uses = new AtomicInteger(uses);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Manages a dynamic class data sharing (CDS) archive of the classes loaded through the JVM's built-in class loaders,
+ * which includes the loader and its libraries.
+ *
+ * <p>The archive has to be supplied when the JVM starts, so it is created by a training run and only used by the
+ * following runs. Knot defines its classes from transformed bytes that can't be shared this way, those are covered by
+ * the {@link ClassCache} instead, see {@link SystemProperties#CDS_ARCHIVE}.
+ */
+public final class CdsArchive {
+	private static final String HOTSPOT_DIAGNOSTIC = "com.sun.management:type=HotSpotDiagnostic";
+	private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+	private static final String ARCHIVE_EXTENSION = ".jsa";
+
+	/**
+	 * Check the archive state once the mods are initialized, creating or recreating it if the JVM allows.
+	 *
+	 * <p>The startup time gets logged for comparing runs with and without the archive.
+	 */
+	public static void update(Path gameDir, EnvType envType) {
+		long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+		Path dir = gameDir.resolve(FabricLoaderImpl.CACHE_DIR_NAME).resolve(FabricLoaderImpl.CDS_DIR_NAME);
+		Path archive = dir.resolve(getArchiveName(envType)).toAbsolutePath().normalize();
+		boolean archiveSupplied = isArchive(getVmOption("SharedArchiveFile"), archive);
+
+		// "sharing" is also reported for the JDK's base archive, so a rejected archive only shows up in the JVM's own log
+		if (archiveSupplied && System.getProperty("java.vm.info", "").contains("sharing")) {
+			Log.info(LogCategory.KNOT, "Mods initialized %d ms after JVM start using the CDS archive %s", uptime, archive);
+			return;
+		}
+
+		Log.info(LogCategory.KNOT, "Mods initialized %d ms after JVM start without CDS archive", uptime);
+
+		if (archiveSupplied && Files.exists(archive) && !"true".equals(getVmOption("AutoCreateSharedArchive"))) {
+			Log.warn(LogCategory.KNOT, "CDS archive %s was rejected by the JVM, it has to be recreated", archive);
+		}
+
+		if ("true".equals(getVmOption("RecordDynamicDumpInfo"))) {
+			Thread thread = new Thread(() -> dump(dir, archive), "Fabric CDS Archive Writer");
+			thread.setDaemon(true);
+			thread.start();
+		} else if (archiveSupplied && "true".equals(getVmOption("AutoCreateSharedArchive"))
+				|| isArchive(getVmOption("ArchiveClassesAtExit"), archive)) {
+			Log.info(LogCategory.KNOT, "The JVM will write the CDS archive %s on exit", archive);
+		} else {
+			int javaVersion = getJavaVersion();
+
+			if (javaVersion >= 19) {
+				Log.info(LogCategory.KNOT, "Add the JVM arguments -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=%s to create and use a CDS archive", archive);
+			} else if (javaVersion >= 13) {
+				Log.info(LogCategory.KNOT, "Add the JVM argument -XX:ArchiveClassesAtExit=%1$s for one run to create a CDS archive, then use it with -XX:SharedArchiveFile=%1$s", archive);
+			} else {
+				Log.info(LogCategory.KNOT, "Dynamic CDS archives require Java 13 or newer");
+			}
+		}
+	}
+
+	private static void dump(Path dir, Path archive) {
+		try {
+			Files.createDirectories(dir);
+
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + ARCHIVE_EXTENSION)) { // remove archives for other class paths
+				for (Path file : stream) {
+					if (!file.toAbsolutePath().normalize().equals(archive)) Files.deleteIfExists(file);
+				}
+			}
+
+			long startTime = System.nanoTime();
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.invoke(new ObjectName(DIAGNOSTIC_COMMAND), "vmCds",
+					new Object[] { new String[] { "dynamic_dump", archive.toString() } },
+					new String[] { String[].class.getName() });
+
+			Log.info(LogCategory.KNOT, "Wrote CDS archive %s in %.1f ms, use it with -XX:SharedArchiveFile=%s",
+					archive, (System.nanoTime() - startTime) * 1e-6, archive);
+		} catch (Exception e) {
+			Log.warn(LogCategory.KNOT, "Error writing CDS archive %s", archive, e);
+		}
+	}
+
+	/**
+	 * Get the archive's file name, which changes with anything the JVM validates the archive against.
+	 */
+	private static String getArchiveName(EnvType envType) {
+		String key = String.join("\n", FabricLoaderImpl.VERSION,
+				System.getProperty("java.vm.version", ""),
+				System.getProperty("java.class.path", ""));
+
+		return String.format("%s-%08x%s", envType.name().toLowerCase(Locale.ENGLISH), key.hashCode(), ARCHIVE_EXTENSION);
+	}
+
+	private static boolean isArchive(String file, Path archive) {
+		if (file == null || file.isEmpty()) return false;
+
+		try {
+			return Paths.get(file).toAbsolutePath().normalize().equals(archive);
+		} catch (RuntimeException e) { // invalid path
+			return false;
+		}
+	}
+
+	/**
+	 * Get a HotSpot VM option through JMX.
+	 *
+	 * @return the option's value or null if it doesn't exist or the VM doesn't expose it
+	 */
+	private static String getVmOption(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			CompositeData option = (CompositeData) server.invoke(new ObjectName(HOTSPOT_DIAGNOSTIC), "getVMOption",
+					new Object[] { name },
+					new String[] { String.class.getName() });
+
+			return (String) option.get("value");
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static int getJavaVersion() {
+		String version = System.getProperty("java.specification.version", "").replaceFirst("^1\\.", "");
+
+		try {
+			return Integer.parseInt(version);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.transformer.Config;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.ModContainerImpl;
+import net.fabricmc.loader.impl.launch.FabricLauncherBase;
+import net.fabricmc.loader.impl.transformer.FabricTransformer;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Persistent cache of transformed class bytes, stored as a single memory mapped archive per configuration.
+ *
+ * <p>Entries are keyed by class name and the hash of the untransformed class bytes, the archive itself by a fingerprint
+ * of everything else influencing the transformation, see {@link #computeFingerprint}. An entry holds the class after
+ * the game and Fabric transformers and whether Mixin left it unchanged, in which case it's used as the final class
+ * without involving Mixin at all. Mixin targets still get transformed by Mixin, which has to track the applied mixins.
+ * Skipping Mixin is only done without Mixin config plugins, their mixin selection isn't covered by the fingerprint.
+ *
+ * <p>New entries are kept in memory and written to a new archive on exit.
+ */
+final class ClassCache {
+	private static final int MAGIC = 0x46434331; // FCC1
+	private static final int HASH_SIZE = 20; // sha-1
+	private static final String FILE_SUFFIX = ".bin";
+	private static final String PENDING_SUFFIX = ".new";
+
+	private final Path file;
+	private final String fingerprint;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private volatile boolean dirty;
+	private volatile boolean mixinSkippable; // no config plugin, determined once the configs got selected
+
+	/**
+	 * Open the cache for the given fingerprint, loading the existing archive if present.
+	 */
+	static ClassCache open(Path dir, String fingerprint) throws IOException {
+		Files.createDirectories(dir);
+
+		Path file = dir.resolve(fingerprint + FILE_SUFFIX);
+		Path pending = dir.resolve(fingerprint + FILE_SUFFIX + PENDING_SUFFIX);
+
+		if (Files.exists(pending)) { // archive that couldn't replace the mapped one in the previous run
+			Files.move(pending, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		ClassCache ret;
+
+		if (Files.exists(file)) {
+			ByteBuffer buf;
+
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+			ret = new ClassCache(file, fingerprint);
+			readIndex(buf, fingerprint, ret.entries);
+		} else {
+			ret = new ClassCache(file, fingerprint);
+		}
+
+		Log.debug(LogCategory.KNOT, "Opened class cache %s with %d entries", file, ret.entries.size());
+
+		return ret;
+	}
+
+	private ClassCache(Path file, String fingerprint) {
+		this.file = file;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Get the cached entry for a class.
+	 *
+	 * @param rawHash hash of the untransformed class bytes, see {@link #hash}
+	 * @return the entry or null if there is none for the class in its current form
+	 */
+	Entry get(String name, byte[] rawHash) {
+		Entry ret = entries.get(name);
+
+		return ret != null && Arrays.equals(ret.rawHash, rawHash) ? ret : null;
+	}
+
+	/**
+	 * Determine whether {@link Entry#mixinUnchanged} can be trusted to skip Mixin.
+	 *
+	 * <p>Config plugins decide about applying mixins through {@code shouldApplyMixin} and {@code getMixins}, commonly based
+	 * on mod specific configuration the fingerprint doesn't capture, so Mixin has to run whenever any config has one.
+	 */
+	boolean canSkipMixin() {
+		if (mixinSkippable) return true;
+
+		try {
+			for (Config config : Mixins.getConfigs()) {
+				if (config.getConfig().getPlugin() != null) return false;
+			}
+		} catch (RuntimeException e) { // config not selected yet, re-check later
+			return false;
+		}
+
+		mixinSkippable = true;
+
+		return true;
+	}
+
+	/**
+	 * Add an entry for a transformed class.
+	 *
+	 * @param bytes class bytes before applying Mixin
+	 * @param mixinUnchanged whether Mixin didn't modify the class
+	 */
+	void put(String name, byte[] rawHash, byte[] bytes, boolean mixinUnchanged) {
+		entries.put(name, new Entry(null, rawHash, mixinUnchanged, 0, bytes.length, bytes));
+		dirty = true;
+	}
+
+	/**
+	 * Write the archive if there are new entries, replacing the previous one.
+	 */
+	void save() throws IOException {
+		if (!dirty) return;
+
+		List<Map.Entry<String, Entry>> list = new ArrayList<>(entries.entrySet());
+		list.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (OutputStream os = Files.newOutputStream(tmp);
+				DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os))) {
+			dos.writeInt(MAGIC);
+			dos.writeUTF(fingerprint);
+			dos.writeInt(list.size());
+
+			int offset = 0;
+
+			for (Map.Entry<String, Entry> e : list) {
+				Entry entry = e.getValue();
+				byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+
+				dos.writeShort(name.length);
+				dos.write(name);
+				dos.write(entry.rawHash);
+				dos.writeBoolean(entry.mixinUnchanged);
+				dos.writeInt(offset);
+				dos.writeInt(entry.length);
+				offset += entry.length;
+			}
+
+			for (Map.Entry<String, Entry> e : list) {
+				dos.write(e.getValue().getBytes());
+			}
+		}
+
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) { // the mapped archive may not be replaceable (Windows), apply it on next start instead
+			Log.debug(LogCategory.KNOT, "Deferring class cache replacement: %s", e.toString());
+			Files.move(tmp, file.resolveSibling(file.getFileName() + PENDING_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		dirty = false;
+
+		// remove archives for other fingerprints, which got invalidated
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(file.getParent(), "*" + FILE_SUFFIX + "*")) {
+			for (Path path : stream) {
+				if (!path.getFileName().toString().startsWith(fingerprint)) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+	}
+
+	private static void readIndex(ByteBuffer buf, String fingerprint, Map<String, Entry> out) {
+		try {
+			if (buf.getInt() != MAGIC) return;
+
+			int len = buf.getShort() & 0xffff; // DataOutput.writeUTF format, fingerprint is ascii
+			byte[] fp = new byte[len];
+			buf.get(fp);
+			if (!fingerprint.equals(new String(fp, StandardCharsets.UTF_8))) return;
+
+			int count = buf.getInt();
+			String[] names = new String[count];
+			byte[][] hashes = new byte[count][];
+			boolean[] mixinUnchanged = new boolean[count];
+			int[] offsets = new int[count];
+			int[] lengths = new int[count];
+
+			for (int i = 0; i < count; i++) {
+				byte[] name = new byte[buf.getShort() & 0xffff];
+				buf.get(name);
+				names[i] = new String(name, StandardCharsets.UTF_8);
+				hashes[i] = new byte[HASH_SIZE];
+				buf.get(hashes[i]);
+				mixinUnchanged[i] = buf.get() != 0;
+				offsets[i] = buf.getInt();
+				lengths[i] = buf.getInt();
+			}
+
+			ByteBuffer data = buf.slice();
+
+			for (int i = 0; i < count; i++) {
+				if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > data.capacity()) return; // truncated
+
+				out.put(names[i], new Entry(data, hashes[i], mixinUnchanged[i], offsets[i], lengths[i], null));
+			}
+		} catch (RuntimeException e) { // BufferUnderflowException etc.
+			Log.debug(LogCategory.KNOT, "Invalid class cache archive", e);
+			out.clear();
+		}
+	}
+
+	/**
+	 * Hash class bytes for use as an entry key.
+	 */
+	static byte[] hash(byte[] bytes) {
+		MessageDigest digest = DIGEST.get();
+		digest.reset();
+
+		return digest.digest(bytes);
+	}
+
+	/**
+	 * Compute a fingerprint of the configuration affecting class transformation.
+	 *
+	 * <p>It covers the loader and Mixin versions, the environment, the runtime namespace and every mod with its version,
+	 * code source file sizes and modification times, Mixin configs and class tweaker. The file attributes catch mod
+	 * jars being replaced without a version change.
+	 *
+	 * @return hex string identifying the configuration
+	 */
+	static String computeFingerprint(EnvType envType) {
+		MessageDigest digest = newDigest();
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(FabricLoaderImpl.VERSION).append('\n');
+		sb.append(MixinBootstrap.VERSION).append('\n');
+		sb.append(envType.name()).append('\n');
+		sb.append(FabricLauncherBase.getLauncher().getMappingConfiguration().getRuntimeNamespace()).append('\n');
+		sb.append(SystemProperties.isSet(SystemProperties.FIX_PACKAGE_ACCESS)).append('\n');
+		sb.append(FabricTransformer.getTransformerNames()).append('\n');
+
+		List<ModContainerImpl> mods = new ArrayList<>(FabricLoaderImpl.INSTANCE.getModsInternal());
+		mods.sort(Comparator.comparing(mod -> mod.getMetadata().getId()));
+
+		for (ModContainerImpl mod : mods) {
+			sb.append(mod.getMetadata().getId()).append(' ').append(mod.getMetadata().getVersion().getFriendlyString());
+			sb.append(' ').append(mod.getMetadata().getClassTweaker());
+
+			for (String config : sortedCopy(mod.getMetadata().getMixinConfigs(envType))) {
+				sb.append(' ').append(config);
+			}
+
+			for (Path path : mod.getCodeSourcePaths()) {
+				sb.append(' ').append(path);
+
+				try {
+					sb.append(':').append(Files.size(path)).append(':').append(Files.getLastModifiedTime(path).toMillis());
+				} catch (IOException | UnsupportedOperationException e) {
+					// directory or non-default file system, covered by the version and parent mod
+				}
+			}
+
+			sb.append('\n');
+		}
+
+		List<String> configs = new ArrayList<>();
+
+		for (Config config : Mixins.getConfigs()) { // includes configs not registered through mod metadata
+			configs.add(config.getName());
+		}
+
+		sb.append(String.join(" ", sortedCopy(configs)));
+
+		byte[] hash = digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+		StringBuilder ret = new StringBuilder(hash.length * 2);
+
+		for (byte b : hash) {
+			ret.append(String.format("%02x", b & 0xff));
+		}
+
+		return ret.toString();
+	}
+
+	private static List<String> sortedCopy(Collection<String> values) {
+		List<String> ret = new ArrayList<>(values);
+		ret.sort(null);
+
+		return ret;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(ClassCache::newDigest);
+
+	static final class Entry {
+		private final ByteBuffer data; // mapped archive data for entries loaded from the archive
+		final byte[] rawHash;
+		final boolean mixinUnchanged;
+		private final int offset;
+		final int length;
+		private final byte[] bytes; // class bytes for new entries
+
+		private Entry(ByteBuffer data, byte[] rawHash, boolean mixinUnchanged, int offset, int length, byte[] bytes) {
+			this.data = data;
+			this.rawHash = rawHash;
+			this.mixinUnchanged = mixinUnchanged;
+			this.offset = offset;
+			this.length = length;
+			this.bytes = bytes;
+		}
+
+		/**
+		 * Get the class bytes before Mixin, copied from the archive if mapped.
+		 */
+		byte[] getBytes() {
+			if (bytes != null) return bytes;
+
+			byte[] ret = new byte[length];
+			ByteBuffer data = this.data.duplicate();
+			data.position(offset);
+			data.get(ret);
+
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+import net.fabricmc.loader.impl.ModContainerImpl;
+import net.fabricmc.loader.impl.mrj.JfrEvents;
+import net.fabricmc.loader.impl.util.LoaderUtil;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.UrlUtil;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Measures the time Knot spends in each phase of loading a class.
+ *
+ * <p>Class loads nest when a transformer or static initialization triggers loading another class, each phase is thus
+ * attributed to the innermost class load on the current thread. Phases of the same class load nest as well, e.g. Mixin
+ * reading other classes through {@code getPreMixinClassBytes}, their time is excluded from the enclosing phase. The
+ * measurements are emitted as JFR events while recorded and aggregated by mod and class for {@link #logReport} if
+ * {@link SystemProperties#DEBUG_CLASS_LOAD_REPORT} is set.
+ */
+public final class ClassLoadProfiler {
+	static final int LOOKUP = 0;
+	static final int READ = 1;
+	static final int GAME_PATCH = 2;
+	static final int FABRIC_TRANSFORM = 3;
+	static final int MIXIN = 4;
+	static final int DEFINE = 5;
+	private static final String[] PHASE_NAMES = { "lookup", "read", "game patch", "fabric transform", "mixin", "define" };
+
+	private static final boolean REPORT = SystemProperties.isSet(SystemProperties.DEBUG_CLASS_LOAD_REPORT);
+	private static final int REPORTED_MODS = 15;
+	private static final int REPORTED_CLASSES = 20;
+	private static final String UNKNOWN_MOD = "<unknown>";
+
+	private static final ThreadLocal<Record> current = new ThreadLocal<>();
+	private static final Map<String, Stats> modStats = new ConcurrentHashMap<>();
+	private static final Map<String, Stats> classStats = new ConcurrentHashMap<>();
+	private static volatile Map<Path, String> modsByCodeSource;
+
+	/**
+	 * Start profiling a class load on the current thread.
+	 *
+	 * @return the record to pass to {@link #end}, null if profiling is inactive
+	 */
+	static Record begin(String name) {
+		Object event = JfrEvents.beginClassLoad();
+		if (event == null && !REPORT) return null;
+
+		Record ret = new Record(name, event, current.get());
+		current.set(ret);
+
+		return ret;
+	}
+
+	/**
+	 * Get the start time for a phase of the current class load.
+	 *
+	 * @return the start time to pass to {@link #endPhase} or 0 if profiling is inactive
+	 */
+	static long startPhase() {
+		Record record = current.get();
+		if (record == null) return 0;
+
+		record.pushPhase();
+
+		return System.nanoTime();
+	}
+
+	static void endPhase(int phase, long startTime) {
+		if (startTime == 0) return;
+
+		Record record = current.get();
+		if (record == null) return;
+
+		long time = System.nanoTime() - startTime;
+		record.phaseTimes[phase] += Math.max(time - record.nestedTime, 0);
+		record.popPhase(time);
+	}
+
+	/**
+	 * Set the code source of the class being loaded on the current thread for mod attribution.
+	 */
+	static void setCodeSource(CodeSource codeSource) {
+		Record record = current.get();
+		if (record != null) record.codeSource = codeSource;
+	}
+
+	/**
+	 * Finish profiling a class load.
+	 *
+	 * @param defined whether the class got defined by Knot, otherwise it is only popped without being reported
+	 */
+	static void end(Record record, boolean defined) {
+		current.set(record.parent);
+
+		long totalTime = System.nanoTime() - record.startTime;
+
+		if (record.parent != null) { // exclude the nested load from the enclosing load's current phase
+			record.parent.nestedTime += totalTime;
+		}
+
+		if (!defined) return;
+
+		String modId = getModId(record.codeSource);
+		long[] times = record.phaseTimes;
+
+		if (record.event != null) {
+			JfrEvents.commitClassLoad(record.event, record.name, modId,
+					times[LOOKUP], times[READ], times[GAME_PATCH], times[FABRIC_TRANSFORM], times[MIXIN], times[DEFINE]);
+		}
+
+		if (REPORT) {
+			modStats.computeIfAbsent(modId, ignore -> new Stats()).add(times);
+			classStats.computeIfAbsent(record.name, ignore -> new Stats()).add(times);
+		}
+	}
+
+	private static String getModId(CodeSource codeSource) {
+		if (codeSource == null || codeSource.getLocation() == null) return UNKNOWN_MOD;
+
+		Map<Path, String> map = modsByCodeSource;
+
+		if (map == null) {
+			List<ModContainerImpl> mods = FabricLoaderImpl.INSTANCE.getModsInternal();
+			if (mods.isEmpty()) return UNKNOWN_MOD; // not discovered yet
+
+			map = new HashMap<>();
+
+			for (ModContainerImpl mod : mods) {
+				for (Path path : mod.getCodeSourcePaths()) {
+					map.putIfAbsent(LoaderUtil.normalizeExistingPath(path), mod.getMetadata().getId());
+				}
+			}
+
+			modsByCodeSource = map;
+		}
+
+		Path path = LoaderUtil.normalizeExistingPath(UrlUtil.asPath(codeSource.getLocation()));
+		String ret = map.get(path);
+
+		return ret != null ? ret : String.format("<%s>", path.getFileName());
+	}
+
+	/**
+	 * Log the mods and classes that took the most time to load so far, ordered by their total time.
+	 */
+	public static void logReport() {
+		if (!REPORT || modStats.isEmpty()) return;
+
+		StringBuilder sb = new StringBuilder("Class loading hotspots:");
+		Stats sum = new Stats();
+
+		for (Stats stats : modStats.values()) {
+			sum.add(stats.copy());
+		}
+
+		sb.append(String.format("%n%d classes in %.1f ms (%s)", sum.count, sum.total / 1e6, formatPhases(sum.phaseTimes)));
+		appendTop(sb, "mods", modStats, REPORTED_MODS);
+		appendTop(sb, "classes", classStats, REPORTED_CLASSES);
+
+		Log.info(LogCategory.KNOT, sb.toString());
+	}
+
+	private static void appendTop(StringBuilder sb, String title, Map<String, Stats> statsMap, int limit) {
+		List<Map.Entry<String, Stats>> entries = new ArrayList<>(statsMap.size());
+
+		for (Map.Entry<String, Stats> entry : statsMap.entrySet()) { // snapshot for a stable order
+			entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().copy()));
+		}
+
+		entries.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+
+		sb.append(String.format("%nTop %s:", title));
+
+		for (int i = 0, max = Math.min(limit, entries.size()); i < max; i++) {
+			Map.Entry<String, Stats> entry = entries.get(i);
+			Stats stats = entry.getValue();
+
+			sb.append(String.format("%n\t- %s: %.2f ms", entry.getKey(), stats.total / 1e6));
+			if (stats.count > 1) sb.append(String.format(" for %d classes", stats.count));
+			sb.append(String.format(" (%s)", formatPhases(stats.phaseTimes)));
+		}
+	}
+
+	private static String formatPhases(long[] times) {
+		StringBuilder ret = new StringBuilder();
+
+		for (int i = 0; i < times.length; i++) {
+			if (times[i] == 0) continue;
+			if (ret.length() > 0) ret.append(", ");
+			ret.append(String.format("%s %.2f ms", PHASE_NAMES[i], times[i] / 1e6));
+		}
+
+		return ret.toString();
+	}
+
+	static final class Record {
+		final String name;
+		final Object event;
+		final Record parent;
+		final long startTime = System.nanoTime();
+		final long[] phaseTimes = new long[PHASE_NAMES.length];
+		long nestedTime; // time of nested class loads and phases to exclude from the current phase
+		private long[] savedNestedTimes = new long[4]; // nestedTime of the enclosing phases
+		private int phaseDepth;
+		CodeSource codeSource;
+
+		Record(String name, Object event, Record parent) {
+			this.name = name;
+			this.event = event;
+			this.parent = parent;
+		}
+
+		void pushPhase() {
+			if (phaseDepth == savedNestedTimes.length) savedNestedTimes = Arrays.copyOf(savedNestedTimes, phaseDepth * 2);
+
+			savedNestedTimes[phaseDepth++] = nestedTime;
+			nestedTime = 0;
+		}
+
+		/**
+		 * Restore the enclosing phase's state, excluding the ended phase's time from it.
+		 */
+		void popPhase(long phaseTime) {
+			nestedTime = phaseDepth > 0 ? savedNestedTimes[--phaseDepth] + phaseTime : 0;
+		}
+	}
+
+	private static final class Stats implements Comparable<Stats> {
+		final long[] phaseTimes = new long[PHASE_NAMES.length];
+		long total;
+		int count;
+
+		synchronized void add(long[] times) {
+			for (int i = 0; i < times.length; i++) {
+				phaseTimes[i] += times[i];
+				total += times[i];
+			}
+
+			count++;
+		}
+
+		synchronized void add(Stats stats) {
+			for (int i = 0; i < phaseTimes.length; i++) {
+				phaseTimes[i] += stats.phaseTimes[i];
+			}
+
+			total += stats.total;
+			count += stats.count;
+		}
+
+		synchronized Stats copy() {
+			Stats ret = new Stats();
+			ret.add(this);
+
+			return ret;
+		}
+
+		@Override
+		public int compareTo(Stats o) {
+			return Long.compare(total, o.total);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Profile guided class prefetching.
+ *
+ * <p>Without a matching profile the names of the classes defined by Knot are recorded in load order and written on
+ * exit. With a profile, worker threads produce the final class bytes for the recorded classes in order, staying at most
+ * {@link #WINDOW} classes ahead of the defining threads, and hand them over through {@link #take}.
+ *
+ * <p>The profile is keyed by the same fingerprint as {@link ClassCache}, a mismatch triggers recording a new one.
+ */
+final class ClassPrefetcher {
+	private static final int WINDOW = 512; // max classes to prepare ahead of the defining threads
+	private static final int MAX_RECORDED = 100_000;
+
+	private final Path file;
+	private final String fingerprint;
+	private final List<String> profile; // recorded in a previous run, empty while recording
+	private final Map<String, Integer> profileIndex;
+	private final Set<String> recorded; // null if not recording
+	private final Map<String, byte[]> results = new ConcurrentHashMap<>();
+	private final AtomicInteger nextIndex = new AtomicInteger();
+	private final Object windowLock = new Object();
+	private volatile int consumedIndex;
+	private volatile int generation;
+
+	static ClassPrefetcher open(Path file, String fingerprint) throws IOException {
+		List<String> profile = Collections.emptyList();
+
+		if (Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				if (fingerprint.equals(reader.readLine())) {
+					profile = new ArrayList<>();
+					String line;
+
+					while ((line = reader.readLine()) != null) {
+						if (!line.isEmpty()) profile.add(line);
+					}
+				}
+			}
+		}
+
+		return new ClassPrefetcher(file, fingerprint, profile);
+	}
+
+	private ClassPrefetcher(Path file, String fingerprint, List<String> profile) {
+		this.file = file;
+		this.fingerprint = fingerprint;
+		this.profile = profile;
+
+		if (profile.isEmpty()) {
+			profileIndex = Collections.emptyMap();
+			recorded = new LinkedHashSet<>();
+		} else {
+			profileIndex = new HashMap<>(profile.size() * 2);
+
+			for (int i = 0; i < profile.size(); i++) {
+				profileIndex.putIfAbsent(profile.get(i), i);
+			}
+
+			recorded = null;
+		}
+	}
+
+	boolean isRecording() {
+		return recorded != null;
+	}
+
+	/**
+	 * Start the worker threads if there is a profile.
+	 *
+	 * @param producer function producing the final bytes for a class name, or null if unavailable
+	 * @param isLoaded predicate telling whether a class has been defined already
+	 */
+	void start(Function<String, byte[]> producer, Predicate<String> isLoaded, ClassLoader classLoader) {
+		if (profile.isEmpty()) return;
+
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+		Log.debug(LogCategory.KNOT, "Prefetching %d classes with %d threads", profile.size(), threads);
+
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(() -> run(producer, isLoaded), "Fabric Class Prefetch " + i);
+			thread.setDaemon(true);
+			thread.setContextClassLoader(classLoader);
+			thread.start();
+		}
+	}
+
+	private void run(Function<String, byte[]> producer, Predicate<String> isLoaded) {
+		int index;
+
+		while ((index = nextIndex.getAndIncrement()) < profile.size()) {
+			if (!awaitWindow(index)) return;
+
+			String name = profile.get(index);
+			if (isLoaded.test(name) || results.containsKey(name)) continue;
+
+			int generation = this.generation;
+
+			try {
+				byte[] bytes = producer.apply(name);
+				if (bytes == null) continue;
+
+				results.put(name, bytes);
+
+				if (this.generation != generation || isLoaded.test(name)) { // stale or raced with the defining thread
+					results.remove(name);
+				}
+			} catch (Throwable t) { // the defining thread will redo and report it
+				Log.debug(LogCategory.KNOT, "Prefetching class %s failed", name, t);
+			}
+		}
+	}
+
+	private boolean awaitWindow(int index) {
+		synchronized (windowLock) {
+			while (index > consumedIndex + WINDOW) {
+				try {
+					windowLock.wait();
+				} catch (InterruptedException e) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Take the prefetched bytes for a class about to be defined.
+	 *
+	 * @return the final class bytes or null if they weren't prefetched
+	 */
+	byte[] take(String name) {
+		return results.isEmpty() ? null : results.remove(name);
+	}
+
+	/**
+	 * Notify about a class having been defined by Knot, recording it or advancing the prefetch window.
+	 */
+	void onDefined(String name) {
+		if (recorded != null) {
+			synchronized (recorded) {
+				if (recorded.size() < MAX_RECORDED) recorded.add(name);
+			}
+
+			return;
+		}
+
+		Integer index = profileIndex.get(name);
+		if (index == null) return;
+
+		// drop bytes a worker added after take() missed but before the definition completed, its isLoaded check missed it too
+		if (!results.isEmpty()) results.remove(name);
+
+		if (index > consumedIndex) {
+			synchronized (windowLock) {
+				if (index > consumedIndex) {
+					consumedIndex = index;
+					windowLock.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discard prefetched results after the class path changed.
+	 */
+	void invalidate() {
+		generation++;
+		results.clear();
+	}
+
+	/**
+	 * Write the recorded profile, if any.
+	 */
+	void save() throws IOException {
+		List<String> names;
+
+		if (recorded == null) return;
+
+		synchronized (recorded) {
+			if (recorded.isEmpty()) return;
+			names = new ArrayList<>(recorded);
+		}
+
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			writer.write(fingerprint);
+			writer.write('\n');
+
+			for (String name : names) {
+				writer.write(name);
+				writer.write('\n');
+			}
+		}
+
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Index from class file name to the code source providing it, replacing the linear probing of each class path entry
+ * done by {@link java.net.URLClassLoader}. Indexed jars stay open to read class files directly from them.
+ *
+ * <p>Jars get indexed asynchronously as they are added, lookups wait for pending indexing to complete. Directories and
+ * jars whose resolution can't be replicated exactly (multi-release jars, manifest Class-Path) aren't indexed.
+ * Directories are probed directly, anything else makes {@link #find} report an unknown result so the caller falls back
+ * to the class loader. Code sources added earlier take precedence, as with the class loader.
+ */
+final class CodeSourceIndex {
+	/**
+	 * Result for class files not provided by any code source.
+	 */
+	static final Entry MISSING = new Entry(null, -1, false);
+
+	private final Map<String, Entry> classes = new ConcurrentHashMap<>();
+	private volatile List<Entry> unindexed = new ArrayList<>(); // copy on write, sorted by ordinal
+	private volatile CompletableFuture<?> ready = CompletableFuture.completedFuture(null);
+	private int nextOrdinal;
+
+	synchronized void add(Path codeSource) {
+		boolean directory = Files.isDirectory(codeSource);
+		Entry entry = new Entry(codeSource, nextOrdinal++, directory);
+
+		if (directory) {
+			addUnindexed(entry);
+		} else {
+			ready = CompletableFuture.allOf(ready, CompletableFuture.runAsync(() -> index(entry)));
+		}
+	}
+
+	/**
+	 * Find the code source providing a class file.
+	 *
+	 * @param fileName class file name as returned by {@link net.fabricmc.loader.impl.util.LoaderUtil#getClassFileName}
+	 * @return the code source entry, {@link #MISSING} if no code source has the file or null if the index can't tell
+	 */
+	Entry find(String fileName) {
+		ready.join(); // indexing tasks handle their exceptions
+
+		Entry ret = classes.get(fileName);
+
+		for (Entry entry : unindexed) {
+			if (ret != null && entry.ordinal > ret.ordinal) break;
+			if (!entry.directory) return null;
+			if (Files.isRegularFile(entry.codeSource.resolve(fileName))) return entry;
+		}
+
+		return ret != null ? ret : MISSING;
+	}
+
+	private void index(Entry entry) {
+		ZipFile zf = null;
+
+		try {
+			zf = new ZipFile(entry.codeSource.toFile());
+			ZipEntry manifestEntry = zf.getEntry(JarFile.MANIFEST_NAME);
+
+			if (manifestEntry != null) {
+				Manifest manifest;
+
+				try (InputStream is = zf.getInputStream(manifestEntry)) {
+					manifest = new Manifest(is);
+				}
+
+				Attributes attributes = manifest.getMainAttributes();
+
+				if (Boolean.parseBoolean(attributes.getValue("Multi-Release")) || attributes.getValue(Attributes.Name.CLASS_PATH) != null) {
+					zf.close();
+					addUnindexed(entry);
+					return;
+				}
+			}
+
+			List<String> names = new ArrayList<>();
+
+			for (Enumeration<? extends ZipEntry> e = zf.entries(); e.hasMoreElements(); ) {
+				ZipEntry zipEntry = e.nextElement();
+				String name = zipEntry.getName();
+
+				if (name.endsWith(".class") && !zipEntry.isDirectory()) {
+					names.add(name);
+				}
+			}
+
+			// publish only fully set up entries, concurrent lookups may not wait for this task if it was added late
+			entry.zipFile = zf; // keep open for reading the classes
+
+			for (String name : names) {
+				classes.merge(name, entry, (a, b) -> a.ordinal <= b.ordinal ? a : b);
+			}
+		} catch (IOException | RuntimeException e) {
+			Log.debug(LogCategory.KNOT, "Can't index code source %s", entry.codeSource, e);
+			addUnindexed(entry);
+
+			if (zf != null) {
+				try {
+					zf.close();
+				} catch (IOException f) {
+					e.addSuppressed(f);
+				}
+			}
+		}
+	}
+
+	private synchronized void addUnindexed(Entry entry) {
+		List<Entry> list = new ArrayList<>(unindexed.size() + 1);
+		list.addAll(unindexed);
+
+		int pos = list.size();
+		while (pos > 0 && list.get(pos - 1).ordinal > entry.ordinal) pos--;
+		list.add(pos, entry);
+
+		unindexed = list;
+	}
+
+	static final class Entry {
+		final Path codeSource;
+		final int ordinal;
+		final boolean directory;
+		private ZipFile zipFile; // written by the indexing task before the entry gets published in classes
+
+		Entry(Path codeSource, int ordinal, boolean directory) {
+			this.codeSource = codeSource;
+			this.ordinal = ordinal;
+			this.directory = directory;
+		}
+
+		/**
+		 * Read a class file directly from the pooled zip file or the directory, sized exactly.
+		 */
+		byte[] readClass(String fileName) throws IOException {
+			if (directory) return Files.readAllBytes(codeSource.resolve(fileName));
+
+			ZipEntry entry = zipFile.getEntry(fileName);
+			if (entry == null) throw new FileNotFoundException(String.format("zip file %s doesn't contain %s", codeSource, fileName));
+
+			long size = entry.getSize();
+			if (size > Integer.MAX_VALUE - 8) throw new IOException("class file too big: "+fileName);
+
+			try (InputStream is = zipFile.getInputStream(entry)) {
+				if (size < 0) return readAll(is);
+
+				byte[] ret = new byte[(int) size];
+				int pos = 0;
+				int len;
+
+				while (pos < ret.length && (len = is.read(ret, pos, ret.length - pos)) > 0) {
+					pos += len;
+				}
+
+				if (pos != ret.length) throw new EOFException(String.format("truncated zip entry %s in %s", fileName, codeSource));
+
+				return ret;
+			}
+		}
+
+		/**
+		 * Read a class file from the pooled zip file into a direct buffer.
+		 *
+		 * @param buffer buffer to reuse if it's big enough
+		 * @return a buffer holding the class file between position and limit
+		 */
+		ByteBuffer readClass(String fileName, ByteBuffer buffer) throws IOException {
+			ZipEntry entry = zipFile.getEntry(fileName);
+			if (entry == null) throw new FileNotFoundException(String.format("zip file %s doesn't contain %s", codeSource, fileName));
+
+			long size = entry.getSize();
+			if (size < 0 || size > Integer.MAX_VALUE - 8) throw new IOException("invalid zip entry size for "+fileName);
+
+			if (buffer == null || buffer.capacity() < size) {
+				buffer = ByteBuffer.allocateDirect(Math.max((int) size, 0x8000));
+			}
+
+			buffer.clear().limit((int) size);
+
+			try (ReadableByteChannel channel = Channels.newChannel(zipFile.getInputStream(entry))) {
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) < 0) throw new EOFException(String.format("truncated zip entry %s in %s", fileName, codeSource));
+				}
+			}
+
+			buffer.flip();
+
+			return buffer;
+		}
+
+		/**
+		 * Whether {@link #readClass(String, ByteBuffer)} is usable.
+		 */
+		boolean isPooledZip() {
+			return zipFile != null;
+		}
+
+		private static byte[] readAll(InputStream is) throws IOException {
+			ByteArrayOutputStream os = new ByteArrayOutputStream(32768);
+			byte[] buffer = new byte[8192];
+			int len;
+
+			while ((len = is.read(buffer)) > 0) {
+				os.write(buffer, 0, len);
+			}
+
+			return os.toByteArray();
+		}
+	}
+}
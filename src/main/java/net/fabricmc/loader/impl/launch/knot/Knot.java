@@ -146,11 +146,13 @@ public final class Knot extends FabricLauncherBase {
 
 		FabricMixinBootstrap.init(getEnvironmentType(), loader);
 		FabricLauncherBase.finishMixinBootstrapping();
+		getMappingConfiguration().releaseMappings();
 
 		classLoader.initializeTransformers();
 
 		provider.unlockClassPath(this);
 		unlocked = true;
+		classLoader.startPrefetching();
 
 		try {
 			loader.invokeEntrypoints("preLaunch", PreLaunchEntrypoint.class, PreLaunchEntrypoint::onPreLaunch);
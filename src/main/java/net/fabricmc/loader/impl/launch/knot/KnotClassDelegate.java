@@ -22,11 +22,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
-import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
-import java.nio.file.FileSystemNotFoundException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
@@ -35,11 +33,14 @@ import java.nio.file.StandardCopyOption;
 import java.security.CodeSource;
 import java.security.cert.Certificate;
 import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.Manifest;
 import java.util.zip.CRC32;
@@ -51,11 +52,13 @@ import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.impl.FabricLoaderImpl;
 import net.fabricmc.loader.impl.game.GameProvider;
+import net.fabricmc.loader.impl.game.LazyGameRemapper;
+import net.fabricmc.loader.impl.game.patch.GameTransformer;
 import net.fabricmc.loader.impl.launch.FabricLauncherBase;
+import net.fabricmc.loader.impl.launch.MixinResourcePrefetcher;
 import net.fabricmc.loader.impl.launch.knot.KnotClassDelegate.ClassLoaderAccess;
 import net.fabricmc.loader.impl.transformer.FabricTransformer;
 import net.fabricmc.loader.impl.util.ExceptionUtil;
-import net.fabricmc.loader.impl.util.FileSystemUtil;
 import net.fabricmc.loader.impl.util.LoaderUtil;
 import net.fabricmc.loader.impl.util.ManifestUtil;
 import net.fabricmc.loader.impl.util.SystemProperties;
@@ -69,6 +72,8 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 	private static final boolean LOG_CLASS_LOAD_ERRORS = LOG_CLASS_LOAD || SystemProperties.isSet(SystemProperties.DEBUG_LOG_CLASS_LOAD_ERRORS);
 	private static final boolean LOG_TRANSFORM_ERRORS = SystemProperties.isSet(SystemProperties.DEBUG_LOG_TRANSFORM_ERRORS);
 	private static final boolean DISABLE_ISOLATION = SystemProperties.isSet(SystemProperties.DEBUG_DISABLE_CLASS_PATH_ISOLATION);
+	private static final boolean DISABLE_CLASS_INDEX = SystemProperties.isSet(SystemProperties.DEBUG_DISABLE_CLASS_INDEX);
+	private static final boolean DIRECT_CLASS_BUFFERS = SystemProperties.isSet(SystemProperties.DIRECT_CLASS_BUFFERS);
 
 	static final class Metadata {
 		static final Metadata EMPTY = new Metadata(null, null);
@@ -83,8 +88,9 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 	}
 
 	private static final ClassLoader PLATFORM_CLASS_LOADER = getPlatformClassLoader();
+	private static final ThreadLocal<ByteBuffer> DIRECT_BUFFER = new ThreadLocal<>();
 
-	private final Map<Path, Metadata> metadataCache = new ConcurrentHashMap<>();
+	private final Map<Path, CompletableFuture<Metadata>> metadataCache = new ConcurrentHashMap<>();
 	private final T classLoader;
 	private final ClassLoader parentClassLoader;
 	private final GameProvider provider;
@@ -92,10 +98,16 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 	private final EnvType envType;
 	private IMixinTransformer mixinTransformer;
 	private boolean transformInitialized = false;
+	private volatile boolean mixinConfigsSelected;
+	private ClassCache classCache;
+	private ClassPrefetcher prefetcher;
 	private volatile Set<Path> codeSources = Collections.emptySet();
 	private volatile Set<Path> validParentCodeSources = null; // null = disabled isolation, game provider has to set it to opt in
 	private final Map<Path, String[]> allowedPrefixes = new ConcurrentHashMap<>();
 	private final Set<String> parentSourcedClasses = Collections.newSetFromMap(new ConcurrentHashMap<>());
+	private final CodeSourceIndex classIndex = DISABLE_CLASS_INDEX ? null : new CodeSourceIndex();
+	private final NegativeCache missingClasses = new NegativeCache(); // class names neither available locally, from the parent or the platform
+	private final NegativeCache missingPlatformResources = new NegativeCache(); // file names the platform class loader doesn't have
 
 	private static final Collection<Path> JVM_NATIVE_DIRS = computeJvmNativeDirs();
 	private static final Map<String, String> PROCESSED_NATIVES = new HashMap<>();
@@ -133,9 +145,77 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 			}
 		}
 
+		boolean useClassCache = SystemProperties.isSet(SystemProperties.CLASS_CACHE)
+				|| SystemProperties.isSet(SystemProperties.CDS_ARCHIVE); // Knot's classes can't be archived, cache their bytes instead
+		boolean useProfile = SystemProperties.isSet(SystemProperties.CLASS_LOAD_PROFILE);
+
+		if (useClassCache || useProfile) {
+			String fingerprint = ClassCache.computeFingerprint(envType);
+			if (useClassCache) initializeClassCache(fingerprint);
+			if (useProfile) initializePrefetcher(fingerprint);
+		}
+
 		transformInitialized = true;
 	}
 
+	private void initializeClassCache(String fingerprint) {
+		if (isDevelopment) { // dev mods change without a version bump or new jar
+			Log.info(LogCategory.KNOT, "Not using the class cache in a development environment");
+			return;
+		}
+
+		Path dir = FabricLoaderImpl.INSTANCE.getGameDir().resolve(FabricLoaderImpl.CACHE_DIR_NAME).resolve(FabricLoaderImpl.CLASS_CACHE_DIR_NAME);
+
+		try {
+			ClassCache cache = ClassCache.open(dir, fingerprint);
+
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					cache.save();
+				} catch (IOException e) {
+					Log.warn(LogCategory.KNOT, "Error writing class cache in %s", dir, e);
+				}
+			}, "Fabric Class Cache Writer"));
+
+			classCache = cache;
+		} catch (IOException e) {
+			Log.warn(LogCategory.KNOT, "Error opening class cache in %s, continuing without", dir, e);
+		}
+	}
+
+	private void initializePrefetcher(String fingerprint) {
+		Path file = FabricLoaderImpl.INSTANCE.getGameDir().resolve(FabricLoaderImpl.CACHE_DIR_NAME).resolve(FabricLoaderImpl.CLASS_LOAD_PROFILE_FILE_NAME);
+
+		try {
+			ClassPrefetcher prefetcher = ClassPrefetcher.open(file, fingerprint);
+
+			if (prefetcher.isRecording()) {
+				Log.info(LogCategory.KNOT, "Recording class load profile");
+
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						prefetcher.save();
+					} catch (IOException e) {
+						Log.warn(LogCategory.KNOT, "Error writing class load profile %s", file, e);
+					}
+				}, "Fabric Class Load Profile Writer"));
+			}
+
+			this.prefetcher = prefetcher;
+		} catch (IOException e) {
+			Log.warn(LogCategory.KNOT, "Error reading class load profile %s, continuing without", file, e);
+		}
+	}
+
+	@Override
+	public void startPrefetching() {
+		if (prefetcher == null) return;
+
+		prefetcher.start(name -> getPostMixinClassByteArray(name, findLocalClass(LoaderUtil.getClassFileName(name)), false),
+				name -> classLoader.findLoadedClassFwd(name) != null,
+				classLoader);
+	}
+
 	private IMixinTransformer getMixinTransformer() {
 		assert mixinTransformer != null;
 		return mixinTransformer;
@@ -154,14 +234,23 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 			newCodeSources.add(path);
 
 			this.codeSources = newCodeSources;
+			if (classIndex != null) classIndex.add(path);
+			missingClasses.clear();
+			if (prefetcher != null) prefetcher.invalidate();
 		}
 
+		Path codeSource = path;
+		metadataCache.computeIfAbsent(path, ignore -> CompletableFuture.supplyAsync(() -> computeMetadata(codeSource)));
+
 		try {
 			classLoader.addUrlFwd(UrlUtil.asUrl(path));
 		} catch (MalformedURLException e) {
 			throw new RuntimeException(e);
 		}
 
+		// probes between the clear above and addUrlFwd may have recorded misses with the new generation
+		missingClasses.clear();
+
 		if (LOG_CLASS_LOAD_ERRORS) Log.info(LogCategory.KNOT, "added code source %s", path);
 	}
 
@@ -185,6 +274,8 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 		}
 
 		this.validParentCodeSources = validPaths;
+		missingClasses.clear();
+		missingPlatformResources.clear();
 	}
 
 	@Override
@@ -227,9 +318,17 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 			if (c == null) {
 				if (name.startsWith("java.")) { // fast path for java.** (can only be loaded by the platform CL anyway)
 					c = PLATFORM_CLASS_LOADER.loadClass(name);
+				} else if (missingClasses.contains(name)) { // repeated probe for a class that doesn't exist
+					if (LOG_CLASS_LOAD_ERRORS) Log.warn(LogCategory.KNOT, "can't find class %s (cached)", name);
+					throw new ClassNotFoundException(name);
 				} else {
+					int missingGeneration = missingClasses.getGeneration();
 					c = tryLoadClass(name, false); // try local load
 
+					if (c != null && prefetcher != null) {
+						prefetcher.onDefined(name);
+					}
+
 					if (c == null) { // not available locally, try system class loader
 						String fileName = LoaderUtil.getClassFileName(name);
 						URL url = parentClassLoader.getResource(fileName);
@@ -240,6 +339,7 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 								if (LOG_CLASS_LOAD) Log.info(LogCategory.KNOT, "loaded resources-less class %s from platform class loader");
 							} catch (ClassNotFoundException e) {
 								if (LOG_CLASS_LOAD_ERRORS) Log.warn(LogCategory.KNOT, "can't find class %s", name);
+								missingClasses.add(name, missingGeneration);
 								throw e;
 							}
 						} else if (!isValidParentUrl(url, fileName)) { // available, but restricted
@@ -283,23 +383,63 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 		Set<Path> validParentCodeSources = this.validParentCodeSources;
 
 		if (validParentCodeSources != null) { // explicit whitelist (in addition to platform cl classes)
-			return validParentCodeSources.contains(codeSource) || PLATFORM_CLASS_LOADER.getResource(fileName) != null;
+			return validParentCodeSources.contains(codeSource) || hasPlatformResource(fileName);
 		} else { // reject urls shadowed by this cl
 			return !codeSources.contains(codeSource);
 		}
 	}
 
+	private boolean hasPlatformResource(String fileName) {
+		if (missingPlatformResources.contains(fileName)) return false;
+
+		int generation = missingPlatformResources.getGeneration();
+		if (PLATFORM_CLASS_LOADER.getResource(fileName) != null) return true;
+
+		missingPlatformResources.add(fileName, generation);
+
+		return false;
+	}
+
 	Class<?> tryLoadClass(String name, boolean allowFromParent) throws ClassNotFoundException {
 		if (name.startsWith("java.")) {
 			return null;
 		}
 
+		ClassLoadProfiler.Record record = ClassLoadProfiler.begin(name);
+		if (record == null) return tryLoadClass0(name, allowFromParent);
+
+		Class<?> ret = null;
+
+		try {
+			return ret = tryLoadClass0(name, allowFromParent);
+		} finally {
+			ClassLoadProfiler.end(record, ret != null && ret.getClassLoader() == classLoader);
+		}
+	}
+
+	private Class<?> tryLoadClass0(String name, boolean allowFromParent) throws ClassNotFoundException {
+		String fileName = LoaderUtil.getClassFileName(name);
+		long lookupStart = ClassLoadProfiler.startPhase();
+		CodeSourceIndex.Entry entry = findLocalClass(fileName); // resolved once for the prefix check, reading and defining
+		ClassLoadProfiler.endPhase(ClassLoadProfiler.LOOKUP, lookupStart);
+
 		if (!allowedPrefixes.isEmpty() && !DISABLE_ISOLATION) { // check prefix restrictions (allows exposing libraries partially during startup)
-			String fileName = LoaderUtil.getClassFileName(name);
-			URL url = classLoader.getResource(fileName);
+			Path codeSource = null;
+
+			if (entry != null && entry != CodeSourceIndex.MISSING) {
+				codeSource = entry.codeSource;
+			} else {
+				URL url = entry == null ? classLoader.getResource(fileName) : parentClassLoader.getResource(fileName);
+
+				if (url != null && hasRegularCodeSource(url)) {
+					codeSource = getCodeSource(url, fileName);
+				} else if (url == null) {
+					LazyGameRemapper gameRemapper = getLazyGameRemapper();
+					if (gameRemapper != null) codeSource = gameRemapper.getOrigin(name);
+				}
+			}
 
-			if (url != null && hasRegularCodeSource(url)) {
-				Path codeSource = getCodeSource(url, fileName);
+			if (codeSource != null) {
 				String[] prefixes = allowedPrefixes.get(codeSource);
 
 				if (prefixes != null) {
@@ -333,8 +473,28 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 			}
 		}
 
-		byte[] input = getPostMixinClassByteArray(name, allowFromParent);
-		if (input == null) return null;
+		byte[] input = null;
+		ByteBuffer directInput = null;
+
+		if (DIRECT_CLASS_BUFFERS
+				&& entry != null && entry.isPooledZip()
+				&& (!transformInitialized || !canTransformClass(name))
+				&& getLazyGameRemapper() == null) { // untransformed class from a jar, define straight from a reused direct buffer
+			long readStart = ClassLoadProfiler.startPhase();
+
+			try {
+				directInput = entry.readClass(fileName, DIRECT_BUFFER.get());
+				DIRECT_BUFFER.set(directInput);
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
+			}
+
+			ClassLoadProfiler.endPhase(ClassLoadProfiler.READ, readStart);
+		} else {
+			if (prefetcher != null) input = prefetcher.take(name);
+			if (input == null) input = getPostMixinClassByteArray(name, entry, allowFromParent);
+			if (input == null) return null;
+		}
 
 		// The class we're currently loading could have been loaded already during Mixin initialization triggered by `getPostMixinClassByteArray`.
 		// If this is the case, we want to return the instance that was already defined to avoid attempting a duplicate definition.
@@ -348,7 +508,7 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 			parentSourcedClasses.add(name);
 		}
 
-		KnotClassDelegate.Metadata metadata = getMetadata(name);
+		KnotClassDelegate.Metadata metadata = getMetadata(name, entry);
 
 		int pkgDelimiterPos = name.lastIndexOf('.');
 
@@ -365,114 +525,225 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 			}
 		}
 
-		return classLoader.defineClassFwd(name, input, 0, input.length, metadata.codeSource);
+		ClassLoadProfiler.setCodeSource(metadata.codeSource);
+		long defineStart = ClassLoadProfiler.startPhase();
+
+		Class<?> ret;
+
+		try {
+			if (directInput != null) {
+				ret = classLoader.defineClassFwd(name, directInput, metadata.codeSource);
+			} else {
+				ret = classLoader.defineClassFwd(name, input, 0, input.length, metadata.codeSource);
+			}
+		} finally {
+			ClassLoadProfiler.endPhase(ClassLoadProfiler.DEFINE, defineStart);
+		}
+
+		if (input != null && transformInitialized) { // the game patch output isn't needed anymore once the class exists
+			GameTransformer transformer = provider.getEntrypointTransformer();
+			if (transformer != null) transformer.releasePatchedClass(name);
+		}
+
+		return ret;
 	}
 
-	private Metadata getMetadata(String name) {
+	private Metadata getMetadata(String name, CodeSourceIndex.Entry entry) {
+		LazyGameRemapper gameRemapper = getLazyGameRemapper();
+
+		if (gameRemapper != null) { // remapped game classes don't exist as a resource under their name
+			Path origin = gameRemapper.getOrigin(name);
+			if (origin != null) return getMetadata(origin);
+		}
+
+		if (entry != null && entry != CodeSourceIndex.MISSING) return getMetadata(entry.codeSource);
+
 		String fileName = LoaderUtil.getClassFileName(name);
-		URL url = classLoader.getResource(fileName);
+		URL url = entry == null ? classLoader.getResource(fileName) : parentClassLoader.getResource(fileName);
 		if (url == null || !hasRegularCodeSource(url)) return Metadata.EMPTY;
 
 		return getMetadata(getCodeSource(url, fileName));
 	}
 
 	private Metadata getMetadata(Path codeSource) {
-		return metadataCache.computeIfAbsent(codeSource, (Path path) -> {
-			Manifest manifest = null;
-			CodeSource cs = null;
-			Certificate[] certificates = null;
+		CompletableFuture<Metadata> future = metadataCache.get(codeSource);
 
-			try {
-				if (Files.isDirectory(path)) {
-					manifest = ManifestUtil.readManifestFromBasePath(path);
-				} else {
-					URLConnection connection = new URL("jar:" + path.toUri().toString() + "!/").openConnection();
+		if (future == null) { // not precomputed by addCodeSource, compute here without holding a map lock
+			CompletableFuture<Metadata> newFuture = new CompletableFuture<>();
+			future = metadataCache.putIfAbsent(codeSource, newFuture);
 
-					if (connection instanceof JarURLConnection) {
-						manifest = ((JarURLConnection) connection).getManifest();
-						certificates = ((JarURLConnection) connection).getCertificates();
-					}
+			if (future == null) {
+				future = newFuture;
 
-					if (manifest == null) {
-						try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(path, false)) {
-							manifest = ManifestUtil.readManifestFromBasePath(jarFs.get().getRootDirectories().iterator().next());
-						}
-					}
-
-					// TODO
-					/* JarEntry codeEntry = codeSourceJar.getJarEntry(filename);
-
-					if (codeEntry != null) {
-						cs = new CodeSource(codeSourceURL, codeEntry.getCodeSigners());
-					} */
-				}
-			} catch (IOException | FileSystemNotFoundException e) {
-				if (FabricLauncherBase.getLauncher().isDevelopment()) {
-					Log.warn(LogCategory.KNOT, "Failed to load manifest", e);
+				try {
+					newFuture.complete(computeMetadata(codeSource));
+				} catch (Throwable t) {
+					newFuture.completeExceptionally(t);
 				}
 			}
+		}
 
-			if (cs == null) {
-				try {
-					cs = new CodeSource(UrlUtil.asUrl(path), certificates);
-				} catch (MalformedURLException e) {
-					throw new RuntimeException(e);
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			throw ExceptionUtil.wrap(e.getCause());
+		}
+	}
+
+	private static Metadata computeMetadata(Path path) {
+		Manifest manifest = null;
+
+		try {
+			if (Files.isDirectory(path)) {
+				manifest = ManifestUtil.readManifestFromBasePath(path);
+			} else {
+				try (ZipFile zf = new ZipFile(path.toFile())) {
+					manifest = ManifestUtil.readManifest(zf);
 				}
+
+				// TODO
+				/* JarEntry codeEntry = codeSourceJar.getJarEntry(filename);
+
+				if (codeEntry != null) {
+					cs = new CodeSource(codeSourceURL, codeEntry.getCodeSigners());
+				} */
+			}
+		} catch (IOException e) {
+			if (FabricLauncherBase.getLauncher().isDevelopment()) {
+				Log.warn(LogCategory.KNOT, "Failed to load manifest", e);
 			}
+		}
 
-			return new Metadata(manifest, cs);
-		});
+		try {
+			return new Metadata(manifest, new CodeSource(UrlUtil.asUrl(path), (Certificate[]) null));
+		} catch (MalformedURLException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
-	private byte[] getPostMixinClassByteArray(String name, boolean allowFromParent) {
-		byte[] transformedClassArray = getPreMixinClassByteArray(name, allowFromParent);
+	private byte[] getPostMixinClassByteArray(String name, CodeSourceIndex.Entry entry, boolean allowFromParent) {
+		if (classCache != null && transformInitialized && canTransformClass(name)) {
+			byte[] ret = getCachedPostMixinClassByteArray(name, entry, allowFromParent);
+			if (ret != null) return ret;
+		}
+
+		byte[] transformedClassArray = getPreMixinClassByteArray(name, entry, allowFromParent);
 
 		if (!transformInitialized || !canTransformClass(name)) {
 			return transformedClassArray;
 		}
 
+		return applyMixins(name, transformedClassArray);
+	}
+
+	/**
+	 * Get the final class bytes through {@link #classCache}, adding them if absent.
+	 *
+	 * @return the class bytes or null if it has to be processed without the cache
+	 */
+	private byte[] getCachedPostMixinClassByteArray(String name, CodeSourceIndex.Entry entry, boolean allowFromParent) {
+		byte[] raw;
+
+		try {
+			raw = getRawClassByteArray(name, entry, allowFromParent);
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
+		}
+
+		if (raw == null) return null;
+
+		byte[] rawHash = ClassCache.hash(raw);
+		ClassCache.Entry cached = classCache.get(name, rawHash);
+
+		if (cached != null) {
+			byte[] ret = cached.getBytes();
+
+			return cached.mixinUnchanged && classCache.canSkipMixin() ? ret : applyMixins(name, ret);
+		}
+
+		byte[] preMixin = getPreMixinClassByteArray(name, entry, allowFromParent, raw);
+		if (preMixin == null) return null;
+
+		byte[] ret = applyMixins(name, preMixin);
+		classCache.put(name, rawHash, preMixin, ret == preMixin || Arrays.equals(ret, preMixin));
+
+		return ret;
+	}
+
+	private byte[] applyMixins(String name, byte[] bytes) {
+		long startTime = ClassLoadProfiler.startPhase();
+		long metricsStartTime = MixinMetrics.isActive() ? System.nanoTime() : 0;
+
 		try {
-			return getMixinTransformer().transformClassBytes(name, name, transformedClassArray);
+			byte[] ret = getMixinTransformer().transformClassBytes(name, name, bytes);
+			if (metricsStartTime != 0) MixinMetrics.record(name, bytes, ret, System.nanoTime() - metricsStartTime);
+
+			if (!mixinConfigsSelected) { // Mixin selects and prepares its configs before transforming the first class
+				mixinConfigsSelected = true;
+				MixinResourcePrefetcher.release();
+			}
+
+			return ret;
 		} catch (Throwable t) {
 			String msg = String.format("Mixin transformation of %s failed", name);
 			if (LOG_TRANSFORM_ERRORS) Log.warn(LogCategory.KNOT, msg, t);
 
 			throw new RuntimeException(msg, t);
+		} finally {
+			ClassLoadProfiler.endPhase(ClassLoadProfiler.MIXIN, startTime);
 		}
 	}
 
 	@Override
 	public byte[] getPreMixinClassBytes(String name) {
-		return getPreMixinClassByteArray(name, true);
+		return getPreMixinClassByteArray(name, findLocalClass(LoaderUtil.getClassFileName(name)), true);
+	}
+
+	private byte[] getPreMixinClassByteArray(String name, CodeSourceIndex.Entry entry, boolean allowFromParent) {
+		return getPreMixinClassByteArray(name, entry, allowFromParent, null);
 	}
 
 	/**
 	 * Runs all the class transformers except mixin.
+	 *
+	 * @param raw the already read raw class bytes or null to read them as needed
 	 */
-	private byte[] getPreMixinClassByteArray(String name, boolean allowFromParent) {
+	private byte[] getPreMixinClassByteArray(String name, CodeSourceIndex.Entry entry, boolean allowFromParent, byte[] raw) {
 		// some of the transformers rely on dot notation
 		name = name.replace('/', '.');
 
 		if (!transformInitialized || !canTransformClass(name)) {
+			if (raw != null) return raw;
+
 			try {
-				return getRawClassByteArray(name, allowFromParent);
+				return getRawClassByteArray(name, entry, allowFromParent);
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
 			}
 		}
 
+		long gamePatchStart = ClassLoadProfiler.startPhase();
 		byte[] input = provider.getEntrypointTransformer().transform(name);
+		ClassLoadProfiler.endPhase(ClassLoadProfiler.GAME_PATCH, gamePatchStart);
+
+		if (input == null) input = raw;
 
 		if (input == null) {
 			try {
-				input = getRawClassByteArray(name, allowFromParent);
+				input = getRawClassByteArray(name, entry, allowFromParent);
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
 			}
 		}
 
 		if (input != null) {
-			return FabricTransformer.transform(isDevelopment, envType, name, input);
+			long transformStart = ClassLoadProfiler.startPhase();
+
+			try {
+				return FabricTransformer.transform(isDevelopment, envType, name, input);
+			} finally {
+				ClassLoadProfiler.endPhase(ClassLoadProfiler.FABRIC_TRANSFORM, transformStart);
+			}
 		}
 
 		return null;
@@ -486,12 +757,42 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 
 	@Override
 	public byte[] getRawClassBytes(String name) throws IOException {
-		return getRawClassByteArray(name, true);
+		return getRawClassByteArray(name, findLocalClass(LoaderUtil.getClassFileName(name)), true);
 	}
 
-	private byte[] getRawClassByteArray(String name, boolean allowFromParent) throws IOException {
+	/**
+	 * @param entry the class' code source from {@link #findLocalClass}
+	 */
+	private byte[] getRawClassByteArray(String name, CodeSourceIndex.Entry entry, boolean allowFromParent) throws IOException {
+		long startTime = ClassLoadProfiler.startPhase();
+
+		try {
+			return getRawClassByteArray0(name, entry, allowFromParent);
+		} finally {
+			ClassLoadProfiler.endPhase(ClassLoadProfiler.READ, startTime);
+		}
+	}
+
+	private byte[] getRawClassByteArray0(String name, CodeSourceIndex.Entry entry, boolean allowFromParent) throws IOException {
+		LazyGameRemapper gameRemapper = getLazyGameRemapper();
+
+		if (gameRemapper != null) {
+			Path origin = gameRemapper.getOrigin(name);
+
+			if (origin != null) { // game class, only available once its jar got exposed
+				return codeSources.contains(origin) ? gameRemapper.getClassBytes(name) : null;
+			} else if (gameRemapper.isHiddenClass(name)) { // source name of a renamed game class, only the remapped variant may be loaded
+				return null;
+			}
+		}
+
 		name = LoaderUtil.getClassFileName(name);
-		URL url = classLoader.findResourceFwd(name);
+
+		if (entry != null && entry != CodeSourceIndex.MISSING) { // indexed local class, read directly
+			return entry.readClass(name);
+		}
+
+		URL url = entry == null ? classLoader.findResourceFwd(name) : null;
 
 		if (url == null) {
 			if (!allowFromParent) return null;
@@ -519,6 +820,22 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 		}
 	}
 
+	/**
+	 * Find the code source of a class file among {@link #codeSources} using {@link #classIndex}.
+	 *
+	 * @return the code source entry, {@link CodeSourceIndex#MISSING} if it isn't available locally or null if
+	 * the index is disabled or can't tell, in which case the class loader has to be queried
+	 */
+	private CodeSourceIndex.Entry findLocalClass(String fileName) {
+		return classIndex != null ? classIndex.find(fileName) : null;
+	}
+
+	private LazyGameRemapper getLazyGameRemapper() {
+		GameTransformer transformer = provider.getEntrypointTransformer();
+
+		return transformer != null ? transformer.getLazyRemapper() : null;
+	}
+
 	private static boolean hasRegularCodeSource(URL url) {
 		return url.getProtocol().equals("file") || url.getProtocol().equals("jar");
 	}
@@ -541,6 +858,48 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 		}
 	}
 
+	/**
+	 * Bounded concurrent set of names known to be absent, cleared whenever the class path changes.
+	 *
+	 * <p>Exceeding the bound clears the set, which is cheap and sufficient since the purpose is to short circuit repeated
+	 * probes for the same names within a short time (optional dependency checks via {@code Class.forName}).
+	 */
+	private static final class NegativeCache {
+		private static final int MAX_SIZE = 8192;
+
+		private final Set<String> names = ConcurrentHashMap.newKeySet();
+		private volatile int generation;
+
+		boolean contains(String name) {
+			return names.contains(name);
+		}
+
+		/**
+		 * Get the current generation, to be obtained before probing for a name that may get added.
+		 */
+		int getGeneration() {
+			return generation;
+		}
+
+		/**
+		 * Add a name unless the cache got cleared since obtaining generation.
+		 */
+		void add(String name, int generation) {
+			if (names.size() >= MAX_SIZE) names.clear();
+
+			names.add(name);
+
+			if (this.generation != generation) { // raced with clear, the probe result may be stale
+				names.remove(name);
+			}
+		}
+
+		synchronized void clear() {
+			generation++;
+			names.clear();
+		}
+	}
+
 	interface ClassLoaderAccess {
 		void addUrlFwd(URL url);
 		URL findResourceFwd(String name);
@@ -551,6 +910,7 @@ final class KnotClassDelegate<T extends ClassLoader & ClassLoaderAccess> impleme
 		Object getClassLoadingLockFwd(String name);
 		Class<?> findLoadedClassFwd(String name);
 		Class<?> defineClassFwd(String name, byte[] b, int off, int len, CodeSource cs);
+		Class<?> defineClassFwd(String name, ByteBuffer b, CodeSource cs);
 		void resolveClassFwd(Class<?> cls);
 	}
 
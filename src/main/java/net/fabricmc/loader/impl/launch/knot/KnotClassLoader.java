@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
 import java.security.CodeSource;
 import java.util.Enumeration;
 import java.util.Objects;
@@ -165,6 +166,11 @@ final class KnotClassLoader extends AbstractSecureClassLoader implements ClassLo
 		return super.defineClass(name, b, off, len, cs);
 	}
 
+	@Override
+	public Class<?> defineClassFwd(String name, ByteBuffer b, CodeSource cs) {
+		return super.defineClass(name, b, cs);
+	}
+
 	@Override
 	public void resolveClassFwd(Class<?> cls) {
 		super.resolveClass(cls);
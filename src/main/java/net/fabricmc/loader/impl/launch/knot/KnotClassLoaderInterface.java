@@ -36,6 +36,11 @@ interface KnotClassLoaderInterface {
 
 	void initializeTransformers();
 
+	/**
+	 * Start preparing classes ahead of their use if enabled, to be called once the class path is complete.
+	 */
+	void startPrefetching();
+
 	ClassLoader getClassLoader();
 
 	void addCodeSource(Path path);
@@ -18,6 +18,7 @@ package net.fabricmc.loader.impl.launch.knot;
 
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
 import java.security.CodeSource;
 
 import net.fabricmc.api.EnvType;
@@ -87,6 +88,11 @@ class KnotCompatibilityClassLoader extends URLClassLoader implements ClassLoader
 		return super.defineClass(name, b, off, len, cs);
 	}
 
+	@Override
+	public Class<?> defineClassFwd(String name, ByteBuffer b, CodeSource cs) {
+		return super.defineClass(name, b, cs);
+	}
+
 	@Override
 	public void resolveClassFwd(Class<?> cls) {
 		super.resolveClass(cls);
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Size bounded LRU cache of the class bytes and nodes Mixin requests through {@link MixinServiceKnot}.
+ *
+ * <p>Mixin reads the same targets, super classes and interfaces many times while applying the configs, each read
+ * would otherwise run the loader's transformers again. Entries are weighted by their class file size, nodes with
+ * {@link #NODE_WEIGHT_FACTOR} since their object graph is considerably larger. Callers always receive their own copy.
+ */
+public final class MixinClassCache {
+	private static final int DEFAULT_SIZE_MIB = 32;
+	private static final int NODE_WEIGHT_FACTOR = 4;
+	private static final int BYTES = -1; // reader flags value for byte entries
+
+	static final MixinClassCache INSTANCE = new MixinClassCache(getMaxWeight());
+
+	private final long maxWeight;
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true); // access order
+	private long weight;
+	private long evictions;
+
+	private final LongAdder byteHits = new LongAdder();
+	private final LongAdder byteMisses = new LongAdder();
+	private final LongAdder nodeHits = new LongAdder();
+	private final LongAdder nodeMisses = new LongAdder();
+
+	MixinClassCache(long maxWeight) {
+		this.maxWeight = maxWeight;
+	}
+
+	private static long getMaxWeight() {
+		String value = System.getProperty(SystemProperties.MIXIN_CLASS_CACHE_SIZE);
+		if (value == null) return DEFAULT_SIZE_MIB << 20;
+
+		try {
+			return Math.max(0, Long.parseLong(value)) << 20;
+		} catch (NumberFormatException e) {
+			Log.warn(LogCategory.KNOT, "Invalid mixin class cache size %s, using the default", value);
+			return DEFAULT_SIZE_MIB << 20;
+		}
+	}
+
+	byte[] getBytes(String name, boolean runTransformers, BytesSource source) throws ClassNotFoundException, IOException {
+		Key key = new Key(name, runTransformers, BYTES);
+		byte[] cached = (byte[]) get(key);
+
+		if (cached != null) {
+			byteHits.increment();
+			return cached.clone();
+		}
+
+		byteMisses.increment();
+		byte[] ret = source.get(name, runTransformers);
+		put(key, ret.clone(), ret.length);
+
+		return ret;
+	}
+
+	ClassNode getNode(String name, boolean runTransformers, int readerFlags, BytesSource source) throws ClassNotFoundException, IOException {
+		Key key = new Key(name, runTransformers, readerFlags);
+		ClassNode cached = (ClassNode) get(key);
+
+		if (cached != null) {
+			nodeHits.increment();
+			return copy(cached);
+		}
+
+		nodeMisses.increment();
+		byte[] bytes = getBytes(name, runTransformers, source);
+		ClassNode ret = new ClassNode();
+		new ClassReader(bytes).accept(ret, readerFlags);
+		put(key, copy(ret), (long) bytes.length * NODE_WEIGHT_FACTOR);
+
+		return ret;
+	}
+
+	private static ClassNode copy(ClassNode node) {
+		ClassNode ret = new ClassNode();
+
+		synchronized (node) { // accept resets the source's label state
+			node.accept(ret);
+		}
+
+		return ret;
+	}
+
+	private synchronized Object get(Key key) {
+		Entry entry = entries.get(key);
+
+		return entry != null ? entry.value : null;
+	}
+
+	private synchronized void put(Key key, Object value, long entryWeight) {
+		if (entryWeight > maxWeight) return;
+
+		Entry prev = entries.put(key, new Entry(value, entryWeight));
+		if (prev != null) weight -= prev.weight;
+		weight += entryWeight;
+
+		for (Iterator<Entry> it = entries.values().iterator(); weight > maxWeight && it.hasNext(); ) {
+			weight -= it.next().weight;
+			it.remove();
+			evictions++;
+		}
+	}
+
+	long getByteHits() {
+		return byteHits.sum();
+	}
+
+	long getNodeHits() {
+		return nodeHits.sum();
+	}
+
+	synchronized long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Log the hit rates of the cache used by {@link MixinServiceKnot}.
+	 */
+	public static void logStats() {
+		INSTANCE.logStats0();
+	}
+
+	private void logStats0() {
+		long bh = byteHits.sum();
+		long bm = byteMisses.sum();
+		long nh = nodeHits.sum();
+		long nm = nodeMisses.sum();
+		if (bh + bm + nh + nm == 0) return;
+
+		long usedWeight;
+		long evicted;
+
+		synchronized (this) {
+			usedWeight = weight;
+			evicted = evictions;
+		}
+
+		Log.debug(LogCategory.KNOT, "Mixin class cache: bytes %d/%d hits (%.1f%%), nodes %d/%d hits (%.1f%%), %d KiB used, %d evictions",
+				bh, bh + bm, getRate(bh, bm), nh, nh + nm, getRate(nh, nm), usedWeight >> 10, evicted);
+	}
+
+	private static double getRate(long hits, long misses) {
+		return hits + misses > 0 ? hits * 100.0 / (hits + misses) : 0;
+	}
+
+	interface BytesSource {
+		byte[] get(String name, boolean runTransformers) throws ClassNotFoundException, IOException;
+	}
+
+	private static final class Entry {
+		final Object value;
+		final long weight;
+
+		Entry(Object value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+	private static final class Key {
+		final String name;
+		final boolean runTransformers;
+		final int readerFlags;
+
+		Key(String name, boolean runTransformers, int readerFlags) {
+			this.name = name;
+			this.runTransformers = runTransformers;
+			this.readerFlags = readerFlags;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+
+			Key o = (Key) obj;
+
+			return name.equals(o.name) && runTransformers == o.runTransformers && readerFlags == o.readerFlags;
+		}
+
+		@Override
+		public int hashCode() {
+			return (name.hashCode() * 31 + readerFlags) * 2 + (runTransformers ? 1 : 0);
+		}
+	}
+}
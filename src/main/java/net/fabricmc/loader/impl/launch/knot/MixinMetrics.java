@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.spongepowered.asm.mixin.FabricUtil;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+
+import net.fabricmc.loader.impl.mrj.JfrEvents;
+import net.fabricmc.loader.impl.util.SystemProperties;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Attributes the time Mixin spends transforming classes to the mixin configs and mods that got applied.
+ *
+ * <p>The applied mixins are taken from Mixin's {@link ClassInfo} of the target, the mod through the
+ * {@link FabricUtil#KEY_MOD_ID} config decoration. The time of a target is split among its configs by their number of
+ * applied mixins. The results are emitted as JFR events while recorded and aggregated for {@link #logReport} if
+ * {@link SystemProperties#DEBUG_MIXIN_REPORT} is set.
+ */
+public final class MixinMetrics {
+	private static final boolean REPORT = SystemProperties.isSet(SystemProperties.DEBUG_MIXIN_REPORT);
+	private static final int REPORTED_MODS = 15;
+	private static final int REPORTED_CONFIGS = 15;
+	private static final int REPORTED_TARGETS = 20;
+	private static final String UNKNOWN_MOD = "<unknown>";
+
+	private static final Map<String, Stats> modStats = new ConcurrentHashMap<>();
+	private static final Map<String, Stats> configStats = new ConcurrentHashMap<>();
+	private static final Map<String, Stats> targetStats = new ConcurrentHashMap<>();
+
+	/**
+	 * Get whether the mixin application should be timed.
+	 */
+	static boolean isActive() {
+		return REPORT || JfrEvents.isMixinApplyEnabled();
+	}
+
+	/**
+	 * Record the mixin application to a class.
+	 *
+	 * @param name the target class name
+	 * @param input the class bytes passed to Mixin
+	 * @param output the class bytes returned by Mixin
+	 * @param time the time taken to transform the class in ns
+	 */
+	static void record(String name, byte[] input, byte[] output, long time) {
+		if (output == input) return; // untouched by Mixin
+
+		// only use existing class info, creating it would make Mixin read and transform the class again
+		ClassInfo info = ClassInfo.fromCache(name.replace('.', '/'));
+		if (info == null) return;
+
+		Set<IMixinInfo> mixins = info.getAppliedMixins();
+		if (mixins.isEmpty()) return;
+
+		Map<IMixinConfig, Integer> configs = new HashMap<>();
+
+		for (IMixinInfo mixin : mixins) {
+			configs.merge(mixin.getConfig(), 1, Integer::sum);
+		}
+
+		boolean jfr = JfrEvents.isMixinApplyEnabled();
+		Map<String, long[]> mods = REPORT ? new HashMap<>() : null; // time and mixin count per mod for this class
+
+		for (Map.Entry<IMixinConfig, Integer> entry : configs.entrySet()) {
+			IMixinConfig config = entry.getKey();
+			int count = entry.getValue();
+			long share = time * count / mixins.size();
+			String modId = getModId(config);
+
+			if (jfr) JfrEvents.commitMixinApply(name, config.getName(), modId, count, share);
+
+			if (REPORT) {
+				configStats.computeIfAbsent(config.getName(), ignore -> new Stats()).add(share, count);
+				long[] modTotals = mods.computeIfAbsent(modId, ignore -> new long[2]);
+				modTotals[0] += share;
+				modTotals[1] += count;
+			}
+		}
+
+		if (REPORT) {
+			for (Map.Entry<String, long[]> entry : mods.entrySet()) { // count each class once per mod
+				modStats.computeIfAbsent(entry.getKey(), ignore -> new Stats()).add(entry.getValue()[0], (int) entry.getValue()[1]);
+			}
+
+			targetStats.computeIfAbsent(name, ignore -> new Stats()).add(time, mixins.size());
+		}
+	}
+
+	private static String getModId(IMixinConfig config) {
+		Object ret;
+
+		try {
+			ret = config.getDecoration(FabricUtil.KEY_MOD_ID);
+		} catch (NoSuchMethodError e) { // old Mixin without config decoration support
+			ret = null;
+		}
+
+		return ret != null ? ret.toString() : UNKNOWN_MOD;
+	}
+
+	/**
+	 * Log the mods, mixin configs and target classes that took the most time to apply mixins so far.
+	 */
+	public static void logReport() {
+		if (!REPORT || targetStats.isEmpty()) return;
+
+		StringBuilder sb = new StringBuilder("Mixin hotspots:");
+		Stats sum = new Stats();
+
+		for (Stats stats : targetStats.values()) {
+			sum.add(stats.copy());
+		}
+
+		sb.append(String.format("%n%d mixins applied to %d classes in %.1f ms", sum.mixins, sum.classes, sum.time / 1e6));
+		appendTop(sb, "mods", modStats, REPORTED_MODS);
+		appendTop(sb, "configs", configStats, REPORTED_CONFIGS);
+		appendTop(sb, "targets", targetStats, REPORTED_TARGETS);
+
+		Log.info(LogCategory.MIXIN, sb.toString());
+	}
+
+	private static void appendTop(StringBuilder sb, String title, Map<String, Stats> statsMap, int limit) {
+		List<Map.Entry<String, Stats>> entries = new ArrayList<>(statsMap.size());
+
+		for (Map.Entry<String, Stats> entry : statsMap.entrySet()) { // snapshot for a stable order
+			entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().copy()));
+		}
+
+		entries.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+
+		sb.append(String.format("%nTop %s:", title));
+
+		for (int i = 0, max = Math.min(limit, entries.size()); i < max; i++) {
+			Map.Entry<String, Stats> entry = entries.get(i);
+			Stats stats = entry.getValue();
+
+			sb.append(String.format("%n\t- %s: %.2f ms for %d mixin%s", entry.getKey(), stats.time / 1e6, stats.mixins, stats.mixins != 1 ? "s" : ""));
+			if (stats.classes > 1) sb.append(String.format(" in %d classes", stats.classes));
+		}
+	}
+
+	private static final class Stats implements Comparable<Stats> {
+		long time;
+		int classes;
+		int mixins;
+
+		synchronized void add(long time, int mixins) {
+			this.time += time;
+			this.classes++;
+			this.mixins += mixins;
+		}
+
+		synchronized void add(Stats stats) {
+			time += stats.time;
+			classes += stats.classes;
+			mixins += stats.mixins;
+		}
+
+		synchronized Stats copy() {
+			Stats ret = new Stats();
+			ret.add(this);
+
+			return ret;
+		}
+
+		@Override
+		public int compareTo(Stats o) {
+			return Long.compare(time, o.time);
+		}
+	}
+}
@@ -22,7 +22,6 @@ import java.net.URL;
 import java.util.Collection;
 import java.util.Collections;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.launch.platform.container.ContainerHandleURI;
 import org.spongepowered.asm.launch.platform.container.IContainerHandle;
@@ -44,6 +43,7 @@ import org.spongepowered.asm.util.ReEntranceLock;
 
 import net.fabricmc.loader.impl.launch.FabricLauncherBase;
 import net.fabricmc.loader.impl.launch.FabricMixinVersions;
+import net.fabricmc.loader.impl.launch.MixinResourcePrefetcher;
 import net.fabricmc.loader.impl.util.UrlUtil;
 
 public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBytecodeProvider, ITransformerProvider, IClassTracker {
@@ -56,10 +56,18 @@ public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBy
 	}
 
 	public byte[] getClassBytes(String name, String transformedName) throws IOException {
-		return FabricLauncherBase.getLauncher().getClassByteArray(name, true);
+		try {
+			return MixinClassCache.INSTANCE.getBytes(name, true, MixinServiceKnot::readClassBytes);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
 	}
 
 	public byte[] getClassBytes(String name, boolean runTransformers) throws ClassNotFoundException, IOException {
+		return MixinClassCache.INSTANCE.getBytes(name, runTransformers, MixinServiceKnot::readClassBytes);
+	}
+
+	private static byte[] readClassBytes(String name, boolean runTransformers) throws ClassNotFoundException, IOException {
 		byte[] classBytes = FabricLauncherBase.getLauncher().getClassByteArray(name, runTransformers);
 
 		if (classBytes != null) {
@@ -81,10 +89,7 @@ public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBy
 
 	@Override
 	public ClassNode getClassNode(String name, boolean runTransformers, int readerFlags) throws ClassNotFoundException, IOException {
-		ClassReader reader = new ClassReader(getClassBytes(name, runTransformers));
-		ClassNode node = new ClassNode();
-		reader.accept(node, readerFlags);
-		return node;
+		return MixinClassCache.INSTANCE.getNode(name, runTransformers, readerFlags, MixinServiceKnot::readClassBytes);
 	}
 
 	@Override
@@ -206,6 +211,9 @@ public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBy
 
 	@Override
 	public InputStream getResourceAsStream(String name) {
+		InputStream ret = MixinResourcePrefetcher.getResourceAsStream(name);
+		if (ret != null) return ret;
+
 		return FabricLauncherBase.getLauncher().getResourceAsStream(name);
 	}
 
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.mrj;
+
+/**
+ * Emits loader events to Java Flight Recorder, JFR is only accessible on Java 11+ so this is a no-op stub.
+ */
+public final class JfrEvents {
+	/**
+	 * Start timing a class load event.
+	 *
+	 * @return the event to pass to {@link #commitClassLoad} or null if it isn't being recorded
+	 */
+	public static Object beginClassLoad() {
+		return null;
+	}
+
+	public static void commitClassLoad(Object event, String className, String modId,
+			long lookupNanos, long readNanos, long gamePatchNanos, long fabricTransformNanos, long mixinNanos, long defineNanos) { }
+
+	/**
+	 * Whether mixin application events are being recorded, to skip collecting their data otherwise.
+	 */
+	public static boolean isMixinApplyEnabled() {
+		return false;
+	}
+
+	public static void commitMixinApply(String className, String config, String modId, int mixins, long nanos) { }
+
+	/**
+	 * Whether entrypoint events are being recorded, to skip collecting their data otherwise.
+	 */
+	public static boolean isEntrypointEnabled() {
+		return false;
+	}
+
+	public static void commitEntrypoint(String key, String modId, String definition, String phase, long nanos) { }
+}
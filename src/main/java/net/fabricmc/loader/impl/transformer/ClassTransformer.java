@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.transformer;
+
+import java.util.ServiceLoader;
+
+import net.fabricmc.loader.impl.game.GameProvider;
+
+/**
+ * Class transformer applied after the builtin transformations and before Mixin.
+ *
+ * <p>Transformers are supplied by {@link GameProvider#getClassTransformers} or registered as {@link ServiceLoader}
+ * service by loader plugins on the system class path. They apply in that order, each one only to the classes matching
+ * its {@link #getTargets targets}.
+ */
+public interface ClassTransformer {
+	/**
+	 * Get the classes this transformer may act on, queried once before the first class gets transformed.
+	 */
+	TransformerTargets getTargets();
+
+	/**
+	 * Transform a class.
+	 *
+	 * @param name the class name in dot format
+	 * @param bytes the class bytes, must not be modified in place
+	 * @return the transformed class bytes or {@code bytes} if there was nothing to change
+	 */
+	byte[] transform(String name, byte[] bytes);
+}
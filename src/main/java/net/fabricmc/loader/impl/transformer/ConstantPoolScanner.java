@@ -0,0 +1,362 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.transformer;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Reads a class file's constant pool and annotations without parsing the rest of it, as a cheap check before
+ * involving a full ASM pass.
+ */
+public final class ConstantPoolScanner {
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+
+	private final byte[] b;
+	private final int[] cpOffsets; // offset of each constant pool entry's tag, 0 for unused slots
+	private final int cpEnd;
+
+	/**
+	 * @throws IllegalArgumentException if the data isn't a class file
+	 */
+	public ConstantPoolScanner(byte[] classFile) {
+		this.b = classFile;
+
+		if (classFile.length < 10 || readInt(0) != MAGIC) throw new IllegalArgumentException("not a class file");
+
+		int count = readUnsignedShort(8);
+		cpOffsets = new int[count];
+		int offset = 10;
+
+		for (int i = 1; i < count; i++) {
+			cpOffsets[i] = offset;
+
+			switch (b[offset]) {
+			case CONSTANT_UTF8:
+				offset += 3 + readUnsignedShort(offset + 1);
+				break;
+			case CONSTANT_INTEGER:
+			case CONSTANT_FLOAT:
+			case CONSTANT_FIELDREF:
+			case CONSTANT_METHODREF:
+			case CONSTANT_INTERFACE_METHODREF:
+			case CONSTANT_NAME_AND_TYPE:
+			case CONSTANT_DYNAMIC:
+			case CONSTANT_INVOKE_DYNAMIC:
+				offset += 5;
+				break;
+			case CONSTANT_LONG:
+			case CONSTANT_DOUBLE:
+				offset += 9;
+				i++; // takes two slots
+				break;
+			case CONSTANT_CLASS:
+			case CONSTANT_STRING:
+			case CONSTANT_METHOD_TYPE:
+			case CONSTANT_MODULE:
+			case CONSTANT_PACKAGE:
+				offset += 3;
+				break;
+			case CONSTANT_METHOD_HANDLE:
+				offset += 4;
+				break;
+			default:
+				throw new IllegalArgumentException("invalid constant pool tag "+b[offset]+" at "+offset);
+			}
+		}
+
+		cpEnd = offset;
+	}
+
+	/**
+	 * Determine whether the constant pool contains any of the supplied strings, which is the case for all
+	 * descriptors of annotations present on the class or its members.
+	 */
+	public boolean containsUtf8(String... values) {
+		byte[][] encoded = new byte[values.length][];
+
+		for (int i = 0; i < values.length; i++) {
+			encoded[i] = encodeUtf8(values[i]);
+		}
+
+		for (int offset : cpOffsets) {
+			if (offset == 0 || b[offset] != CONSTANT_UTF8) continue;
+
+			int len = readUnsignedShort(offset + 1);
+
+			for (byte[] value : encoded) {
+				if (value.length == len && regionEquals(offset + 3, value)) return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Visit the class header, fields, methods and their annotations without visiting any code or other attributes.
+	 *
+	 * <p>Fields and methods get visited before the class annotations. Annotation values are reported as they would be
+	 * by {@link org.objectweb.asm.ClassReader}, apart from type annotations and parameter annotations not being visited.
+	 */
+	public void acceptAnnotations(ClassVisitor visitor) {
+		int offset = cpEnd;
+		int access = readUnsignedShort(offset);
+		String name = readClass(offset + 2);
+		String superName = readClass(offset + 4);
+		String[] interfaces = new String[readUnsignedShort(offset + 6)];
+		offset += 8;
+
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = readClass(offset);
+			offset += 2;
+		}
+
+		visitor.visit(readInt(4), access, name, null, superName, interfaces);
+
+		for (int m = 0; m < 2; m++) { // fields, then methods
+			int count = readUnsignedShort(offset);
+			offset += 2;
+
+			for (int i = 0; i < count; i++) {
+				int memberAccess = readUnsignedShort(offset);
+				String memberName = readUtf8(offset + 2);
+				String memberDesc = readUtf8(offset + 4);
+				offset += 6;
+
+				if (m == 0) {
+					FieldVisitor fv = visitor.visitField(memberAccess, memberName, memberDesc, null, null);
+					offset = readAnnotationAttributes(offset, fv != null ? fv::visitAnnotation : null);
+					if (fv != null) fv.visitEnd();
+				} else {
+					MethodVisitor mv = visitor.visitMethod(memberAccess, memberName, memberDesc, null, null);
+					offset = readAnnotationAttributes(offset, mv != null ? mv::visitAnnotation : null);
+					if (mv != null) mv.visitEnd();
+				}
+			}
+		}
+
+		readAnnotationAttributes(offset, visitor::visitAnnotation);
+		visitor.visitEnd();
+	}
+
+	private interface AnnotationSink {
+		AnnotationVisitor visitAnnotation(String descriptor, boolean visible);
+	}
+
+	/**
+	 * Read an attribute table, visiting the annotations in it.
+	 *
+	 * @return the offset after the table
+	 */
+	private int readAnnotationAttributes(int offset, AnnotationSink sink) {
+		int count = readUnsignedShort(offset);
+		offset += 2;
+
+		for (int i = 0; i < count; i++) {
+			int len = readInt(offset + 2);
+
+			if (sink != null) {
+				String attrName = readUtf8(offset);
+				boolean visible = attrName.equals("RuntimeVisibleAnnotations");
+
+				if (visible || attrName.equals("RuntimeInvisibleAnnotations")) {
+					int pos = offset + 6;
+					int annotations = readUnsignedShort(pos);
+					pos += 2;
+
+					for (int j = 0; j < annotations; j++) {
+						String desc = readUtf8(pos);
+						pos = readElementValuePairs(pos + 2, sink.visitAnnotation(desc, visible));
+					}
+				}
+			}
+
+			offset += 6 + len;
+		}
+
+		return offset;
+	}
+
+	private int readElementValuePairs(int offset, AnnotationVisitor av) {
+		int count = readUnsignedShort(offset);
+		offset += 2;
+
+		for (int i = 0; i < count; i++) {
+			String name = av != null ? readUtf8(offset) : null;
+			offset = readElementValue(offset + 2, name, av);
+		}
+
+		if (av != null) av.visitEnd();
+
+		return offset;
+	}
+
+	private int readElementValue(int offset, String name, AnnotationVisitor av) {
+		int tag = b[offset] & 0xff;
+		offset++;
+
+		switch (tag) {
+		case 'e':
+			if (av != null) av.visitEnum(name, readUtf8(offset), readUtf8(offset + 2));
+			return offset + 4;
+		case '@':
+			return readElementValuePairs(offset + 2, av != null ? av.visitAnnotation(name, readUtf8(offset)) : null);
+		case '[': {
+			int count = readUnsignedShort(offset);
+			offset += 2;
+			AnnotationVisitor arrayVisitor = av != null ? av.visitArray(name) : null;
+
+			for (int i = 0; i < count; i++) {
+				offset = readElementValue(offset, null, arrayVisitor);
+			}
+
+			if (arrayVisitor != null) arrayVisitor.visitEnd();
+
+			return offset;
+		}
+		default:
+			if (av != null) av.visit(name, readConstValue(tag, readUnsignedShort(offset)));
+			return offset + 2;
+		}
+	}
+
+	private Object readConstValue(int tag, int index) {
+		int offset = cpOffsets[index];
+
+		switch (tag) {
+		case 'B': return (byte) readInt(offset + 1);
+		case 'C': return (char) readInt(offset + 1);
+		case 'S': return (short) readInt(offset + 1);
+		case 'Z': return readInt(offset + 1) != 0;
+		case 'I': return readInt(offset + 1);
+		case 'J': return readLong(offset + 1);
+		case 'F': return Float.intBitsToFloat(readInt(offset + 1));
+		case 'D': return Double.longBitsToDouble(readLong(offset + 1));
+		case 's': return readUtf8Entry(index);
+		case 'c': return Type.getType(readUtf8Entry(index));
+		default: throw new IllegalArgumentException("invalid element value tag "+(char) tag);
+		}
+	}
+
+	private String readClass(int offset) {
+		int index = readUnsignedShort(offset);
+
+		return index != 0 ? readUtf8(cpOffsets[index] + 1) : null;
+	}
+
+	/**
+	 * Read the Utf8 constant referenced by the index at the supplied offset.
+	 */
+	private String readUtf8(int offset) {
+		return readUtf8Entry(readUnsignedShort(offset));
+	}
+
+	private String readUtf8Entry(int index) {
+		int offset = cpOffsets[index];
+		if (b[offset] != CONSTANT_UTF8) throw new IllegalArgumentException("constant "+index+" isn't Utf8");
+
+		int len = readUnsignedShort(offset + 1);
+		int pos = offset + 3;
+		int end = pos + len;
+		char[] chars = new char[len];
+		int count = 0;
+
+		while (pos < end) { // modified UTF-8
+			int c = b[pos++] & 0xff;
+
+			if (c < 0x80) {
+				chars[count++] = (char) c;
+			} else if (c < 0xe0) {
+				chars[count++] = (char) (((c & 0x1f) << 6) | (b[pos++] & 0x3f));
+			} else {
+				chars[count++] = (char) (((c & 0xf) << 12) | ((b[pos++] & 0x3f) << 6) | (b[pos++] & 0x3f));
+			}
+		}
+
+		return new String(chars, 0, count);
+	}
+
+	private static byte[] encodeUtf8(String s) {
+		int len = 0;
+
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			len += c != 0 && c < 0x80 ? 1 : (c < 0x800 ? 2 : 3);
+		}
+
+		byte[] ret = new byte[len];
+		int pos = 0;
+
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+
+			if (c != 0 && c < 0x80) {
+				ret[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				ret[pos++] = (byte) (0xc0 | (c >> 6));
+				ret[pos++] = (byte) (0x80 | (c & 0x3f));
+			} else {
+				ret[pos++] = (byte) (0xe0 | (c >> 12));
+				ret[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				ret[pos++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+
+		return ret;
+	}
+
+	private boolean regionEquals(int offset, byte[] value) {
+		for (int i = 0; i < value.length; i++) {
+			if (b[offset + i] != value[i]) return false;
+		}
+
+		return true;
+	}
+
+	private int readUnsignedShort(int offset) {
+		return ((b[offset] & 0xff) << 8) | (b[offset + 1] & 0xff);
+	}
+
+	private int readInt(int offset) {
+		return ((b[offset] & 0xff) << 24) | ((b[offset + 1] & 0xff) << 16) | ((b[offset + 2] & 0xff) << 8) | (b[offset + 3] & 0xff);
+	}
+
+	private long readLong(int offset) {
+		return ((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xffffffffL);
+	}
+}
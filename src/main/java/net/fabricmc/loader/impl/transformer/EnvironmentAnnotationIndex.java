@@ -0,0 +1,352 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import net.fabricmc.loader.impl.util.ZipUtil;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
+
+/**
+ * Index of the classes in mod jars that don't reference any environment annotation, allowing
+ * {@link FabricTransformer} to skip looking for them.
+ *
+ * <p>Each jar gets scanned once, the result is persisted keyed by a hash of the jar's central directory, which covers
+ * the CRC of every entry. Jars with versioned entries or without a regular central directory aren't indexed, neither are
+ * directories. As the index is keyed by class name alone, every class in such a code source is treated as possibly
+ * annotated to not hide an annotated copy of a class indexed elsewhere. The index is dropped if listing fails.
+ */
+public final class EnvironmentAnnotationIndex {
+	private static final int MAGIC = 0x46454931; // FEI1
+	private static final String FILE_EXTENSION = ".bin";
+	private static final String[] DESCRIPTORS = {
+			EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR,
+			EnvironmentStrippingData.ENVIRONMENT_INTERFACE_DESCRIPTOR,
+			EnvironmentStrippingData.ENVIRONMENT_INTERFACES_DESCRIPTOR
+	};
+
+	private static volatile long[] plainClasses; // sorted class name hashes, null until built
+
+	/**
+	 * Determine whether a class may carry environment annotations.
+	 *
+	 * @param name class name in dot format
+	 * @return false if the class is indexed without annotations, true otherwise
+	 */
+	public static boolean mayHaveAnnotations(String name) {
+		long[] hashes = plainClasses;
+
+		return hashes == null || Arrays.binarySearch(hashes, hash(name)) < 0;
+	}
+
+	/**
+	 * Index the supplied code sources in the background, publishing the result once all of them are done.
+	 *
+	 * <p>The work runs on dedicated low priority threads to not hold up other tasks on the common pool.
+	 */
+	public static void build(Path dir, Collection<Path> codeSources) {
+		if (codeSources.isEmpty()) return;
+
+		AtomicInteger threadCounter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(codeSources.size(), Runtime.getRuntime().availableProcessors() / 2)), r -> {
+			Thread thread = new Thread(r, "Fabric Environment Index " + threadCounter.getAndIncrement());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+
+			return thread;
+		});
+		List<CompletableFuture<JarIndex>> futures = new ArrayList<>(codeSources.size());
+
+		for (Path codeSource : codeSources) {
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					if (Files.isRegularFile(codeSource)) {
+						JarIndex ret = getIndex(dir, codeSource);
+						if (ret != null) return ret;
+					}
+				} catch (IOException | RuntimeException e) {
+					Log.debug(LogCategory.GENERAL, "Can't index environment annotations in %s", codeSource, e);
+				}
+
+				try {
+					return new JarIndex(null, new long[0], listClasses(codeSource));
+				} catch (IOException | RuntimeException e) {
+					throw new CompletionException(e);
+				}
+			}, executor));
+		}
+
+		executor.shutdown(); // the submitted tasks still run
+
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((res, exc) -> {
+			if (exc != null) {
+				Log.debug(LogCategory.GENERAL, "Can't list classes for the environment annotation index, disabling it", exc);
+				return;
+			}
+
+			List<JarIndex> indices = new ArrayList<>(futures.size());
+			Set<String> usedFiles = new HashSet<>();
+			int count = 0;
+
+			for (CompletableFuture<JarIndex> future : futures) {
+				JarIndex index = future.join();
+
+				indices.add(index);
+				if (index.fileName != null) usedFiles.add(index.fileName);
+				count += index.plainClasses.length;
+			}
+
+			long[] hashes = new long[count];
+			int pos = 0;
+
+			for (JarIndex index : indices) {
+				System.arraycopy(index.plainClasses, 0, hashes, pos, index.plainClasses.length);
+				pos += index.plainClasses.length;
+			}
+
+			Arrays.sort(hashes);
+
+			for (JarIndex index : indices) { // a class annotated in any jar has to be scanned regardless of its origin
+				for (long hash : index.annotatedClasses) {
+					int idx;
+
+					while ((idx = Arrays.binarySearch(hashes, 0, count, hash)) >= 0) {
+						System.arraycopy(hashes, idx + 1, hashes, idx, count - idx - 1);
+						count--;
+					}
+				}
+			}
+
+			plainClasses = count == hashes.length ? hashes : Arrays.copyOf(hashes, count);
+			Log.debug(LogCategory.GENERAL, "Indexed %d classes without environment annotations in %d jars", count, usedFiles.size());
+
+			removeUnused(dir, usedFiles);
+		});
+	}
+
+	private static JarIndex getIndex(Path dir, Path jar) throws IOException {
+		String hash = ZipUtil.hashCentralDirectory(jar);
+		if (hash == null) return null;
+
+		String fileName = hash + FILE_EXTENSION;
+		Path file = dir.resolve(fileName);
+
+		if (Files.exists(file)) {
+			try (DataInputStream is = new DataInputStream(Files.newInputStream(file))) {
+				if (is.readInt() == MAGIC) {
+					long[] plain = new long[is.readInt()];
+					for (int i = 0; i < plain.length; i++) plain[i] = is.readLong();
+					long[] annotated = new long[is.readInt()];
+					for (int i = 0; i < annotated.length; i++) annotated[i] = is.readLong();
+
+					return new JarIndex(fileName, plain, annotated);
+				}
+			} catch (IOException e) {
+				Log.debug(LogCategory.GENERAL, "Error reading environment annotation index %s, rebuilding", file, e);
+			}
+		}
+
+		JarIndex ret = scan(fileName, jar);
+		if (ret == null) return null;
+
+		Files.createDirectories(dir);
+		Path tmpFile = Files.createTempFile(dir, fileName, ".tmp");
+
+		try {
+			try (DataOutputStream os = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+				os.writeInt(MAGIC);
+				os.writeInt(ret.plainClasses.length);
+				for (long h : ret.plainClasses) os.writeLong(h);
+				os.writeInt(ret.annotatedClasses.length);
+				for (long h : ret.annotatedClasses) os.writeLong(h);
+			}
+
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+
+		return ret;
+	}
+
+	private static JarIndex scan(String fileName, Path jar) throws IOException {
+		long[] plain = new long[64];
+		long[] annotated = new long[8];
+		int plainCount = 0;
+		int annotatedCount = 0;
+		byte[] buffer = new byte[8192];
+
+		try (ZipFile zf = new ZipFile(jar.toFile())) {
+			for (Enumeration<? extends ZipEntry> e = zf.entries(); e.hasMoreElements(); ) {
+				ZipEntry entry = e.nextElement();
+				String name = entry.getName();
+
+				if (name.startsWith("META-INF/versions/")) return null; // multi-release jar, the base entries may not be the ones loaded
+				if (!name.endsWith(".class") || entry.isDirectory()) continue;
+
+				byte[] data;
+
+				try (InputStream is = zf.getInputStream(entry)) {
+					data = readFully(is, entry.getSize(), buffer);
+				}
+
+				long hash = hash(name.substring(0, name.length() - 6).replace('/', '.'));
+				boolean hasAnnotations;
+
+				try {
+					hasAnnotations = new ConstantPoolScanner(data).containsUtf8(DESCRIPTORS);
+				} catch (RuntimeException ex) { // malformed, leave it to the regular transformation
+					hasAnnotations = true;
+				}
+
+				if (hasAnnotations) {
+					if (annotatedCount == annotated.length) annotated = Arrays.copyOf(annotated, annotatedCount * 2);
+					annotated[annotatedCount++] = hash;
+				} else {
+					if (plainCount == plain.length) plain = Arrays.copyOf(plain, plainCount * 2);
+					plain[plainCount++] = hash;
+				}
+			}
+		}
+
+		return new JarIndex(fileName, Arrays.copyOf(plain, plainCount), Arrays.copyOf(annotated, annotatedCount));
+	}
+
+	/**
+	 * Hash the names of all classes in a code source that can't be indexed.
+	 */
+	private static long[] listClasses(Path codeSource) throws IOException {
+		List<String> names = new ArrayList<>();
+
+		if (Files.isDirectory(codeSource)) {
+			try (Stream<Path> stream = Files.walk(codeSource)) {
+				stream.forEach(file -> {
+					String name = codeSource.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+					if (name.endsWith(".class") && Files.isRegularFile(file)) names.add(name);
+				});
+			}
+		} else {
+			try (ZipFile zf = new ZipFile(codeSource.toFile())) {
+				for (Enumeration<? extends ZipEntry> e = zf.entries(); e.hasMoreElements(); ) {
+					ZipEntry entry = e.nextElement();
+					if (entry.getName().endsWith(".class") && !entry.isDirectory()) names.add(entry.getName());
+				}
+			}
+		}
+
+		long[] ret = new long[names.size()];
+
+		for (int i = 0; i < ret.length; i++) {
+			String name = names.get(i);
+
+			if (name.startsWith("META-INF/versions/")) { // versioned entries shadow the base entry of the same name
+				int pos = name.indexOf('/', "META-INF/versions/".length());
+				if (pos > 0) name = name.substring(pos + 1);
+			}
+
+			ret[i] = hash(name.substring(0, name.length() - 6).replace('/', '.'));
+		}
+
+		return ret;
+	}
+
+	private static byte[] readFully(InputStream is, long size, byte[] buffer) throws IOException {
+		if (size >= 0 && size <= Integer.MAX_VALUE) {
+			byte[] ret = new byte[(int) size];
+			int pos = 0;
+			int len;
+
+			while (pos < ret.length && (len = is.read(ret, pos, ret.length - pos)) > 0) {
+				pos += len;
+			}
+
+			if (pos == ret.length) return ret;
+			throw new IOException("truncated zip entry");
+		}
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		int len;
+
+		while ((len = is.read(buffer)) > 0) {
+			os.write(buffer, 0, len);
+		}
+
+		return os.toByteArray();
+	}
+
+	private static void removeUnused(Path dir, Set<String> usedFiles) {
+		if (!Files.isDirectory(dir)) return;
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + FILE_EXTENSION)) {
+			for (Path file : stream) {
+				if (!usedFiles.contains(file.getFileName().toString())) Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			Log.debug(LogCategory.GENERAL, "Error removing unused environment annotation indices in %s", dir, e);
+		}
+	}
+
+	/**
+	 * 64 bit FNV-1a hash of a class name, collisions are unlikely enough at the number of classes involved.
+	 */
+	private static long hash(String name) {
+		long ret = 0xcbf29ce484222325L;
+
+		for (int i = 0; i < name.length(); i++) {
+			ret ^= name.charAt(i);
+			ret *= 0x100000001b3L;
+		}
+
+		return ret;
+	}
+
+	private static final class JarIndex {
+		final String fileName; // null for code sources that aren't indexed
+		final long[] plainClasses;
+		final long[] annotatedClasses;
+
+		JarIndex(String fileName, long[] plainClasses, long[] annotatedClasses) {
+			this.fileName = fileName;
+			this.plainClasses = plainClasses;
+			this.annotatedClasses = annotatedClasses;
+		}
+	}
+}
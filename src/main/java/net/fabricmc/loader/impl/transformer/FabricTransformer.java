@@ -16,6 +16,9 @@
 
 package net.fabricmc.loader.impl.transformer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
 import java.util.Set;
 
 import org.objectweb.asm.ClassReader;
@@ -26,49 +29,88 @@ import net.fabricmc.api.EnvType;
 import net.fabricmc.loader.impl.FabricLoaderImpl;
 import net.fabricmc.loader.impl.game.GameProvider.BuiltinTransform;
 import net.fabricmc.loader.impl.launch.FabricLauncherBase;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
 
 public final class FabricTransformer {
+	private static volatile TransformerDispatcher dispatcher;
+
 	public static byte[] transform(boolean isDevelopment, EnvType envType, String name, byte[] bytes) {
+		bytes = applyBuiltinTransforms(envType, name, bytes);
+
+		return getDispatcher().transform(name, bytes);
+	}
+
+	/**
+	 * Get the names of the registered {@link ClassTransformer}s in application order.
+	 */
+	public static List<String> getTransformerNames() {
+		return getDispatcher().getTransformerNames();
+	}
+
+	private static TransformerDispatcher getDispatcher() {
+		TransformerDispatcher ret = dispatcher;
+		if (ret != null) return ret;
+
+		synchronized (FabricTransformer.class) {
+			if (dispatcher != null) return dispatcher;
+
+			List<ClassTransformer> transformers = new ArrayList<>(FabricLoaderImpl.INSTANCE.getGameProvider().getClassTransformers());
+
+			for (ClassTransformer transformer : ServiceLoader.load(ClassTransformer.class, FabricTransformer.class.getClassLoader())) {
+				transformers.add(transformer);
+			}
+
+			ret = new TransformerDispatcher(transformers);
+			if (!ret.isEmpty()) Log.info(LogCategory.GENERAL, "Loaded class transformers: %s", String.join(", ", ret.getTransformerNames()));
+			dispatcher = ret;
+
+			return ret;
+		}
+	}
+
+	private static byte[] applyBuiltinTransforms(EnvType envType, String name, byte[] bytes) {
 		Set<BuiltinTransform> transforms = FabricLoaderImpl.INSTANCE.getGameProvider().getBuiltinTransforms(name);
 		boolean transformAccess = transforms.contains(BuiltinTransform.WIDEN_ALL_PACKAGE_ACCESS) && FabricLauncherBase.getLauncher().getMappingConfiguration().requiresPackageAccessHack();
 		boolean environmentStrip = transforms.contains(BuiltinTransform.STRIP_ENVIRONMENT);
 		boolean applyClassTweaker = transforms.contains(BuiltinTransform.CLASS_TWEAKS) && FabricLoaderImpl.INSTANCE.getClassTweaker().getTargets().contains(name.replace('.', '/'));
 
-		if (!transformAccess && !environmentStrip && !applyClassTweaker) {
+		EnvironmentStrippingData stripData = null;
+
+		if (environmentStrip && EnvironmentAnnotationIndex.mayHaveAnnotations(name)) {
+			// collect the annotations straight from the class file, only classes referencing them need to be looked at
+			ConstantPoolScanner scanner = new ConstantPoolScanner(bytes);
+
+			if (scanner.containsUtf8(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR, EnvironmentStrippingData.ENVIRONMENT_INTERFACE_DESCRIPTOR, EnvironmentStrippingData.ENVIRONMENT_INTERFACES_DESCRIPTOR)) {
+				stripData = new EnvironmentStrippingData(FabricLoaderImpl.ASM_VERSION, envType.toString());
+				scanner.acceptAnnotations(stripData);
+
+				if (stripData.stripEntireClass()) {
+					throw new RuntimeException("Cannot load class " + name + " in environment type " + envType);
+				}
+
+				if (stripData.isEmpty()) stripData = null;
+			}
+		}
+
+		if (!transformAccess && stripData == null && !applyClassTweaker) {
 			return bytes;
 		}
 
 		ClassReader classReader = new ClassReader(bytes);
 		ClassWriter classWriter = new ClassWriter(classReader, 0);
 		ClassVisitor visitor = classWriter;
-		int visitorCount = 0;
 
 		if (applyClassTweaker) {
 			visitor = FabricLoaderImpl.INSTANCE.getClassTweaker().createClassVisitor(FabricLoaderImpl.ASM_VERSION, visitor, null); // TODO: generated classes?
-			visitorCount++;
 		}
 
 		if (transformAccess) {
 			visitor = new PackageAccessFixer(FabricLoaderImpl.ASM_VERSION, visitor);
-			visitorCount++;
 		}
 
-		if (environmentStrip) {
-			EnvironmentStrippingData stripData = new EnvironmentStrippingData(FabricLoaderImpl.ASM_VERSION, envType.toString());
-			classReader.accept(stripData, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-
-			if (stripData.stripEntireClass()) {
-				throw new RuntimeException("Cannot load class " + name + " in environment type " + envType);
-			}
-
-			if (!stripData.isEmpty()) {
-				visitor = new ClassStripper(FabricLoaderImpl.ASM_VERSION, visitor, stripData.getStripInterfaces(), stripData.getStripFields(), stripData.getStripMethods());
-				visitorCount++;
-			}
-		}
-
-		if (visitorCount <= 0) {
-			return bytes;
+		if (stripData != null) {
+			visitor = new ClassStripper(FabricLoaderImpl.ASM_VERSION, visitor, stripData.getStripInterfaces(), stripData.getStripFields(), stripData.getStripMethods());
 		}
 
 		classReader.accept(visitor, 0);
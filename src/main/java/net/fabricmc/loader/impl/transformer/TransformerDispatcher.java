@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.transformer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Applies each {@link ClassTransformer} to the classes matching its targets.
+ *
+ * <p>The targets are compiled up front into a hash map for exact names and a character trie for prefixes, finding
+ * the applicable transformers takes a single map lookup and a walk along the class name. Only predicates need to be
+ * evaluated individually.
+ */
+final class TransformerDispatcher {
+	private static final int[] NO_TRANSFORMERS = new int[0];
+
+	private final ClassTransformer[] transformers;
+	private final Map<String, int[]> nameTargets = new HashMap<>();
+	private final PrefixNode prefixRoot = new PrefixNode();
+	private final int[] predicateTransformers;
+	private final List<Predicate<String>> predicates = new ArrayList<>();
+
+	TransformerDispatcher(List<ClassTransformer> transformers) {
+		this.transformers = transformers.toArray(new ClassTransformer[0]);
+		int[] predicateTransformers = NO_TRANSFORMERS;
+
+		for (int i = 0; i < this.transformers.length; i++) {
+			TransformerTargets targets = this.transformers[i].getTargets();
+
+			for (String name : targets.names) {
+				nameTargets.put(name, append(nameTargets.getOrDefault(name, NO_TRANSFORMERS), i));
+			}
+
+			for (String prefix : targets.prefixes) {
+				PrefixNode node = prefixRoot;
+
+				for (int j = 0; j < prefix.length(); j++) {
+					node = node.children.computeIfAbsent(prefix.charAt(j), ignore -> new PrefixNode());
+				}
+
+				node.transformers = append(node.transformers, i);
+			}
+
+			if (targets.predicate != null) {
+				predicateTransformers = append(predicateTransformers, i);
+				predicates.add(targets.predicate);
+			}
+		}
+
+		this.predicateTransformers = predicateTransformers;
+	}
+
+	boolean isEmpty() {
+		return transformers.length == 0;
+	}
+
+	List<String> getTransformerNames() {
+		List<String> ret = new ArrayList<>(transformers.length);
+
+		for (ClassTransformer transformer : transformers) {
+			ret.add(transformer.getClass().getName());
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Apply all matching transformers in registration order.
+	 *
+	 * @return the transformed bytes, the supplied array itself if no transformer applied or changed it
+	 */
+	byte[] transform(String name, byte[] bytes) {
+		if (transformers.length == 0) return bytes;
+
+		boolean[] applicable = null;
+		int[] matches = nameTargets.get(name);
+
+		if (matches != null) applicable = mark(applicable, matches);
+
+		PrefixNode node = prefixRoot;
+
+		for (int i = 0; node != null; i++) {
+			if (node.transformers.length > 0) applicable = mark(applicable, node.transformers);
+			if (i == name.length() || node.children.isEmpty()) break;
+
+			node = node.children.get(name.charAt(i));
+		}
+
+		for (int i = 0; i < predicateTransformers.length; i++) {
+			int idx = predicateTransformers[i];
+
+			if ((applicable == null || !applicable[idx]) && predicates.get(i).test(name)) {
+				if (applicable == null) applicable = new boolean[transformers.length];
+				applicable[idx] = true;
+			}
+		}
+
+		if (applicable == null) return bytes; // untouched class
+
+		for (int i = 0; i < applicable.length; i++) {
+			if (!applicable[i]) continue;
+
+			try {
+				bytes = transformers[i].transform(name, bytes);
+			} catch (Throwable t) {
+				throw new RuntimeException(String.format("Transformer %s failed to transform class %s", transformers[i].getClass().getName(), name), t);
+			}
+
+			if (bytes == null) throw new IllegalStateException(String.format("Transformer %s returned null for class %s", transformers[i].getClass().getName(), name));
+		}
+
+		return bytes;
+	}
+
+	private boolean[] mark(boolean[] applicable, int[] indices) {
+		if (applicable == null) applicable = new boolean[transformers.length];
+
+		for (int idx : indices) {
+			applicable[idx] = true;
+		}
+
+		return applicable;
+	}
+
+	private static int[] append(int[] array, int value) {
+		int[] ret = new int[array.length + 1];
+		System.arraycopy(array, 0, ret, 0, array.length);
+		ret[array.length] = value;
+
+		return ret;
+	}
+
+	private static final class PrefixNode {
+		final Map<Character, PrefixNode> children = new HashMap<>();
+		int[] transformers = NO_TRANSFORMERS;
+	}
+}
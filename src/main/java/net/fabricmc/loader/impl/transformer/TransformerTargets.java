@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.transformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Set of class names a {@link ClassTransformer} applies to, as exact names, name prefixes and a predicate.
+ *
+ * <p>All names are in dot format, prefixes typically end with a '.' to cover a package including its sub packages.
+ */
+public final class TransformerTargets {
+	private static final TransformerTargets NONE = new TransformerTargets(Collections.emptySet(), Collections.emptyList(), null);
+
+	final Set<String> names;
+	final List<String> prefixes;
+	final Predicate<String> predicate;
+
+	private TransformerTargets(Set<String> names, List<String> prefixes, Predicate<String> predicate) {
+		this.names = names;
+		this.prefixes = prefixes;
+		this.predicate = predicate;
+	}
+
+	public static TransformerTargets none() {
+		return NONE;
+	}
+
+	public static TransformerTargets all() {
+		return prefixes("");
+	}
+
+	public static TransformerTargets names(String... names) {
+		return names(Arrays.asList(names));
+	}
+
+	public static TransformerTargets names(Collection<String> names) {
+		return new TransformerTargets(Collections.unmodifiableSet(new HashSet<>(names)), Collections.emptyList(), null);
+	}
+
+	public static TransformerTargets prefixes(String... prefixes) {
+		return new TransformerTargets(Collections.emptySet(), Collections.unmodifiableList(new ArrayList<>(Arrays.asList(prefixes))), null);
+	}
+
+	/**
+	 * Target the classes accepted by a predicate, which has to be evaluated for every class and should be cheap.
+	 */
+	public static TransformerTargets matching(Predicate<String> predicate) {
+		Objects.requireNonNull(predicate, "null predicate");
+
+		return new TransformerTargets(Collections.emptySet(), Collections.emptyList(), predicate);
+	}
+
+	/**
+	 * Create the union of this and another target set.
+	 */
+	public TransformerTargets or(TransformerTargets other) {
+		Set<String> names = new HashSet<>(this.names);
+		names.addAll(other.names);
+		List<String> prefixes = new ArrayList<>(this.prefixes);
+		prefixes.addAll(other.prefixes);
+		Predicate<String> predicate;
+
+		if (this.predicate == null) {
+			predicate = other.predicate;
+		} else if (other.predicate == null) {
+			predicate = this.predicate;
+		} else {
+			predicate = this.predicate.or(other.predicate);
+		}
+
+		return new TransformerTargets(Collections.unmodifiableSet(names), Collections.unmodifiableList(prefixes), predicate);
+	}
+
+	public boolean matches(String name) {
+		if (names.contains(name)) return true;
+
+		for (String prefix : prefixes) {
+			if (name.startsWith(prefix)) return true;
+		}
+
+		return predicate != null && predicate.test(name);
+	}
+}
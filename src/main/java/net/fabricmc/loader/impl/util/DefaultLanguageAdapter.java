@@ -16,9 +16,12 @@
 
 package net.fabricmc.loader.impl.util;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandleProxies;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -29,9 +32,13 @@ import net.fabricmc.loader.api.LanguageAdapter;
 import net.fabricmc.loader.api.LanguageAdapterException;
 import net.fabricmc.loader.api.ModContainer;
 import net.fabricmc.loader.impl.launch.FabricLauncherBase;
+import net.fabricmc.loader.impl.util.log.Log;
+import net.fabricmc.loader.impl.util.log.LogCategory;
 
 public final class DefaultLanguageAdapter implements LanguageAdapter {
 	public static final DefaultLanguageAdapter INSTANCE = new DefaultLanguageAdapter();
+	// MethodHandles.privateLookupIn, Java 9+
+	private static final Method PRIVATE_LOOKUP_IN = findPrivateLookupIn();
 
 	private DefaultLanguageAdapter() { }
 
@@ -126,6 +133,10 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 				throw new LanguageAdapterException(ex);
 			}
 
+			// bind directly like javac does for method references, avoids the proxy's reflective dispatch per call
+			T ret = createLambda(type, c, targetMethod, object);
+			if (ret != null) return ret;
+
 			if (object != null) {
 				handle = handle.bindTo(object);
 			}
@@ -138,4 +149,61 @@ public final class DefaultLanguageAdapter implements LanguageAdapter {
 			}
 		}
 	}
+
+	/**
+	 * Create an implementation of the functional interface type invoking method through LambdaMetafactory.
+	 *
+	 * @param receiver instance to invoke method on, null if it is static
+	 * @return the implementation or null if unsupported (Java 8, not a functional interface, incompatible signature)
+	 */
+	static <T> T createLambda(Class<T> type, Class<?> owner, Method method, Object receiver) {
+		if (PRIVATE_LOOKUP_IN == null) return null;
+
+		Method sam = findSingleAbstractMethod(type);
+		if (sam == null) return null;
+
+		try {
+			// the lambda class gets defined next to owner, which has to see type and method
+			MethodHandles.Lookup lookup = (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invoke(null, owner, MethodHandles.lookup());
+			MethodHandle impl = lookup.unreflect(method);
+			MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+			MethodType instantiatedType = MethodType.methodType(sam.getReturnType(), method.getParameterTypes());
+			MethodType factoryType = receiver != null ? MethodType.methodType(type, owner) : MethodType.methodType(type);
+
+			CallSite site = LambdaMetafactory.metafactory(lookup, sam.getName(), factoryType, samType, impl, instantiatedType);
+
+			return type.cast(receiver != null ? site.getTarget().invoke(receiver) : site.getTarget().invoke());
+		} catch (Throwable t) {
+			Log.debug(LogCategory.ENTRYPOINT, "Can't bind %s to %s directly, using a proxy", method, type.getName(), t);
+			return null;
+		}
+	}
+
+	private static Method findSingleAbstractMethod(Class<?> type) {
+		Method ret = null;
+
+		for (Method m : type.getMethods()) {
+			if (!Modifier.isAbstract(m.getModifiers())) continue;
+
+			try {
+				Object.class.getMethod(m.getName(), m.getParameterTypes());
+				continue; // redeclared Object method like equals
+			} catch (NoSuchMethodException e) {
+				// not from Object
+			}
+
+			if (ret != null) return null;
+			ret = m;
+		}
+
+		return ret;
+	}
+
+	private static Method findPrivateLookupIn() {
+		try {
+			return MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
 }
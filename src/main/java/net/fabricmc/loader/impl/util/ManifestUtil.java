@@ -30,7 +30,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.StringTokenizer;
 import java.util.jar.Attributes.Name;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public final class ManifestUtil {
 	public static Manifest readManifest(Class<?> cls) throws IOException, URISyntaxException {
@@ -71,6 +74,18 @@ public final class ManifestUtil {
 		}
 	}
 
+	/**
+	 * Read the manifest of a jar straight from its zip entry, without opening a file system or URL connection.
+	 */
+	public static Manifest readManifest(ZipFile zf) throws IOException {
+		ZipEntry entry = zf.getEntry(JarFile.MANIFEST_NAME);
+		if (entry == null) return null;
+
+		try (InputStream stream = zf.getInputStream(entry)) {
+			return new Manifest(stream);
+		}
+	}
+
 	public static Manifest readManifestFromBasePath(Path basePath) throws IOException {
 		Path path = basePath.resolve("META-INF").resolve("MANIFEST.MF");
 		if (!Files.exists(path)) return null;
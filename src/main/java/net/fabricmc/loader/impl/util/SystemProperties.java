@@ -57,6 +57,21 @@ public final class SystemProperties {
 	public static final String REMAP_CLASSPATH_FILE = "fabric.remapClasspathFile";
 	// class path groups to map multiple class path entries to a mod (paths separated by path separator, groups by double path separator)
 	public static final String PATH_GROUPS = "fabric.classPathGroups";
+	// remap game classes on demand while loading them instead of remapping the game jar(s) up front (Knot only)
+	// the remapped jar cache gets filled by a background thread unless set to "nocache"
+	public static final String LAZY_GAME_REMAP = "fabric.lazyGameRemap";
+	// cache transformed classes in the game dir's .fabric/classCache to skip transforming them again on the next start (Knot only, not in-dev)
+	public static final String CLASS_CACHE = "fabric.classCache";
+	// record the classes loaded by Knot on the first start and prepare them on worker threads ahead of their use on later starts
+	public static final String CLASS_LOAD_PROFILE = "fabric.classLoadProfile";
+	// create a dynamic CDS archive of the loader and library classes in the game dir's .fabric/cds for later starts, implies fabric.classCache (Knot only)
+	public static final String CDS_ARCHIVE = "fabric.cdsArchive";
+	// define untransformed classes from jars straight from a direct byte buffer instead of a heap array (Knot only)
+	public static final String DIRECT_CLASS_BUFFERS = "fabric.directClassBuffers";
+	// load the classes of each entrypoint stage on worker threads ahead of their invocation, without initializing them
+	public static final String PRELOAD_ENTRYPOINTS = "fabric.preloadEntrypoints";
+	// maximum size in MiB of the cache of class bytes and nodes served to Mixin, 0 to disable, defaults to 32
+	public static final String MIXIN_CLASS_CACHE_SIZE = "fabric.mixinClassCacheSize";
 	// enable the fixing of package access errors in the game jar(s)
 	public static final String FIX_PACKAGE_ACCESS = "fabric.fixPackageAccess";
 	// system level libraries, matching code sources will not be assumed to be part of the game or mods and remain on the system class path
@@ -74,8 +89,22 @@ public final class SystemProperties {
 	public static final String DEBUG_LOG_TRANSFORM_ERRORS = "fabric.debug.logTransformErrors";
 	// disables system class path isolation, allowing bogus lib accesses (too early, transient jars)
 	public static final String DEBUG_DISABLE_CLASS_PATH_ISOLATION = "fabric.debug.disableClassPathIsolation";
+	// disables the class file index for Knot code sources, probing each class path entry instead
+	public static final String DEBUG_DISABLE_CLASS_INDEX = "fabric.debug.disableClassIndex";
+	// disables the persistent index of mod classes without environment annotations, scanning every class for them instead
+	public static final String DEBUG_DISABLE_ENVIRONMENT_INDEX = "fabric.debug.disableEnvironmentIndex";
+	// disables the persistent cache of patched game classes, running the game patches on every launch instead
+	public static final String DEBUG_DISABLE_GAME_PATCH_CACHE = "fabric.debug.disableGamePatchCache";
+	// logs the mods and classes that took the most time to load through Knot once the mods got initialized
+	public static final String DEBUG_CLASS_LOAD_REPORT = "fabric.debug.classLoadReport";
+	// logs the mods, mixin configs and target classes that took the most time to apply mixins once the mods got initialized
+	public static final String DEBUG_MIXIN_REPORT = "fabric.debug.mixinReport";
+	// logs the time spent instantiating and invoking entrypoints by key and mod once the mods got initialized
+	public static final String DEBUG_ENTRYPOINT_REPORT = "fabric.debug.entrypointReport";
 	// disables mod load order shuffling to be the same in-dev as in production
 	public static final String DEBUG_DISABLE_MOD_SHUFFLE = "fabric.debug.disableModShuffle";
+	// runs the concurrent mod initializers sequentially on the invoking thread, still ordered by their dependencies
+	public static final String DEBUG_DISABLE_CONCURRENT_INIT = "fabric.debug.disableConcurrentInit";
 	// workaround for bad load order dependencies
 	public static final String DEBUG_LOAD_LATE = "fabric.debug.loadLate";
 	// override the mod discovery timeout, unit in seconds, <= 0 to disable
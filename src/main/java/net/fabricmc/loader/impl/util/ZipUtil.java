@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class ZipUtil {
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+	private static final int EOCD_SIZE = 22;
+
+	/**
+	 * Hash the central directory of a zip file, which lists the names, sizes and CRCs of all entries.
+	 *
+	 * <p>This identifies the zip's content without reading the entries themselves.
+	 *
+	 * @return the SHA-1 hash in hex or null if the central directory can't be located (zip64)
+	 */
+	public static String hashCentralDirectory(Path zip) throws IOException {
+		try (FileChannel fc = FileChannel.open(zip, StandardOpenOption.READ)) {
+			long size = fc.size();
+			int tailLen = (int) Math.min(size, 0xffff + EOCD_SIZE); // end of central directory record with max comment length
+			ByteBuffer tail = ByteBuffer.allocate(tailLen).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(fc, tail, size - tailLen);
+
+			for (int pos = tailLen - EOCD_SIZE; pos >= 0; pos--) {
+				if (tail.getInt(pos) != EOCD_SIGNATURE) continue;
+
+				long cdSize = tail.getInt(pos + 12) & 0xffffffffL;
+				long cdOffset = tail.getInt(pos + 16) & 0xffffffffL;
+				if (cdSize == 0xffffffffL || cdOffset == 0xffffffffL || cdOffset + cdSize > size) return null;
+
+				ByteBuffer cd = ByteBuffer.allocate((int) cdSize);
+				readFully(fc, cd, cdOffset);
+				cd.flip();
+
+				MessageDigest digest = MessageDigest.getInstance("SHA-1");
+				digest.update(cd);
+				byte[] hash = digest.digest();
+				StringBuilder sb = new StringBuilder(hash.length * 2);
+
+				for (byte b : hash) {
+					sb.append(String.format("%02x", b));
+				}
+
+				return sb.toString();
+			}
+
+			return null;
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void readFully(FileChannel fc, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = fc.read(buffer, position + buffer.position());
+			if (read < 0) throw new IOException("unexpected end of file");
+		}
+	}
+}
@@ -0,0 +1,600 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util.mappings;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.mappingio.tree.MappingTreeView;
+
+/**
+ * Immutable class/field/method name table in a flat binary format, suitable for memory mapping.
+ *
+ * <p>All names are stored once in a string pool sorted by their UTF-8 bytes, so string ids compare like the strings
+ * themselves. Classes are indexed per namespace by sorted name ids, members are stored in contiguous per-class ranges.
+ * Lookups only read the buffer through absolute accessors and are thread safe.
+ */
+public final class MappingTable {
+	private static final int MAGIC = 0x464d5431; // FMT1
+
+	private static final int NS_COUNT = 4;
+	private static final int STRING_COUNT = 8;
+	private static final int CLASS_COUNT = 12;
+	private static final int FIELD_COUNT = 16;
+	private static final int METHOD_COUNT = 20;
+	private static final int STRING_OFFSETS_POS = 24;
+	private static final int STRING_DATA_POS = 28;
+	private static final int NS_NAMES_POS = 32;
+	private static final int CLASSES_POS = 36;
+	private static final int CLASS_INDEX_POS = 40;
+	private static final int FIELDS_POS = 44;
+	private static final int METHODS_POS = 48;
+	private static final int HEADER_SIZE = 52;
+
+	private static final int ABSENT = -1; // stored id for missing names or descriptors
+	private static final int UNKNOWN = -2; // query string id for strings not in the pool
+
+	private final ByteBuffer buf;
+	private final int nsCount;
+	private final int stringCount;
+	private final int classCount;
+	private final int stringOffsetsPos;
+	private final int stringDataPos;
+	private final int classesPos;
+	private final int classIndexPos;
+	private final int fieldsPos;
+	private final int methodsPos;
+	private final List<String> namespaces;
+
+	/**
+	 * Wrap a buffer holding a table created by {@link #write}.
+	 */
+	public static MappingTable read(ByteBuffer buf) {
+		if (buf.capacity() < HEADER_SIZE || buf.getInt(0) != MAGIC) throw new IllegalArgumentException("invalid mapping table");
+
+		return new MappingTable(buf);
+	}
+
+	private MappingTable(ByteBuffer buf) {
+		this.buf = buf;
+		this.nsCount = buf.getInt(NS_COUNT);
+		this.stringCount = buf.getInt(STRING_COUNT);
+		this.classCount = buf.getInt(CLASS_COUNT);
+		this.stringOffsetsPos = buf.getInt(STRING_OFFSETS_POS);
+		this.stringDataPos = buf.getInt(STRING_DATA_POS);
+		this.classesPos = buf.getInt(CLASSES_POS);
+		this.classIndexPos = buf.getInt(CLASS_INDEX_POS);
+		this.fieldsPos = buf.getInt(FIELDS_POS);
+		this.methodsPos = buf.getInt(METHODS_POS);
+
+		List<String> namespaces = new ArrayList<>(nsCount);
+		int nsNamesPos = buf.getInt(NS_NAMES_POS);
+
+		for (int i = 0; i < nsCount; i++) {
+			namespaces.add(getString0(buf.getInt(nsNamesPos + i * 4)));
+		}
+
+		this.namespaces = Collections.unmodifiableList(namespaces);
+	}
+
+	public List<String> getNamespaces() {
+		return namespaces;
+	}
+
+	/**
+	 * @return namespace id or -1 if the namespace isn't part of the table
+	 */
+	public int getNamespaceId(String namespace) {
+		return namespaces.indexOf(namespace);
+	}
+
+	public int getClassCount() {
+		return classCount;
+	}
+
+	public int getFieldCount() {
+		return buf.getInt(FIELD_COUNT);
+	}
+
+	public int getMethodCount() {
+		return buf.getInt(METHOD_COUNT);
+	}
+
+	/**
+	 * @return the internal name of the class with the given index or null if it isn't named in the namespace
+	 */
+	public @Nullable String getClassName(int cls, int ns) {
+		return getStringOrNull(buf.getInt(getClassPos(cls) + ns * 4));
+	}
+
+	public @Nullable String getFieldName(int field, int ns) {
+		return getStringOrNull(buf.getInt(fieldsPos + field * nsCount * 8 + ns * 4));
+	}
+
+	public @Nullable String getFieldDesc(int field, int ns) {
+		return getStringOrNull(buf.getInt(fieldsPos + field * nsCount * 8 + (nsCount + ns) * 4));
+	}
+
+	public @Nullable String getMethodName(int method, int ns) {
+		return getStringOrNull(buf.getInt(methodsPos + method * nsCount * 8 + ns * 4));
+	}
+
+	public @Nullable String getMethodDesc(int method, int ns) {
+		return getStringOrNull(buf.getInt(methodsPos + method * nsCount * 8 + (nsCount + ns) * 4));
+	}
+
+	/**
+	 * Get the pool id of a member's name, for building lookup structures without materializing strings.
+	 *
+	 * @param method whether {@code member} is a method index, otherwise a field index
+	 * @return the string id, see {@link #getString}, or -1 if the member isn't named in the namespace
+	 */
+	public int getMemberNameId(boolean method, int member, int ns) {
+		return buf.getInt((method ? methodsPos : fieldsPos) + member * nsCount * 8 + ns * 4);
+	}
+
+	/**
+	 * Get the pool id of a member's descriptor, see {@link #getMemberNameId}.
+	 */
+	public int getMemberDescId(boolean method, int member, int ns) {
+		return buf.getInt((method ? methodsPos : fieldsPos) + member * nsCount * 8 + (nsCount + ns) * 4);
+	}
+
+	/**
+	 * @return the id of {@code str} in the string pool or a negative value if the table doesn't use the string
+	 */
+	public int getStringId(String str) {
+		return findString(str);
+	}
+
+	/**
+	 * @return the pooled string for the id or null if the id is negative
+	 */
+	public @Nullable String getString(int id) {
+		return id >= 0 ? getString0(id) : null;
+	}
+
+	/**
+	 * @return whether the table has a class with the given internal name in the namespace
+	 */
+	public boolean hasClass(String name, int ns) {
+		return ns >= 0 && findClass(findString(name), ns) >= 0;
+	}
+
+	/**
+	 * Map an internal class name between namespaces.
+	 *
+	 * @return the mapped name or {@code name} if there is no mapping
+	 */
+	public String mapClassName(String name, int fromNs, int toNs) {
+		if (fromNs == toNs || fromNs < 0 || toNs < 0) return name;
+
+		String ret = getClassName(name, fromNs, toNs);
+
+		return ret != null ? ret : name;
+	}
+
+	/**
+	 * Get the name of a class in another namespace.
+	 *
+	 * @return the name in {@code toNs} or null if the class isn't part of the table or isn't named in {@code toNs}
+	 */
+	public @Nullable String getClassName(String name, int fromNs, int toNs) {
+		if (fromNs < 0 || toNs < 0) return null;
+
+		int cls = findClass(findString(name), fromNs);
+		if (cls < 0) return null;
+
+		int ret = buf.getInt(getClassPos(cls) + toNs * 4);
+
+		return ret != ABSENT ? getString0(ret) : null;
+	}
+
+	/**
+	 * Map all class names within a field or method descriptor between namespaces.
+	 */
+	public String mapDesc(String desc, int fromNs, int toNs) {
+		int start = desc.indexOf('L');
+		if (start < 0 || fromNs == toNs) return desc;
+
+		StringBuilder ret = new StringBuilder(desc.length() + 16);
+		int pos = 0;
+
+		while (start >= 0) {
+			int end = desc.indexOf(';', start + 1);
+			if (end < 0) throw new IllegalArgumentException("invalid descriptor: "+desc);
+
+			ret.append(desc, pos, start + 1);
+			ret.append(mapClassName(desc.substring(start + 1, end), fromNs, toNs));
+			pos = end;
+			start = desc.indexOf('L', end + 1);
+		}
+
+		ret.append(desc, pos, desc.length());
+
+		return ret.toString();
+	}
+
+	/**
+	 * Map a field name between namespaces.
+	 *
+	 * @param owner internal name of the field owner in {@code fromNs}
+	 * @param desc field descriptor in {@code fromNs}, null to match any
+	 * @return the mapped name or null if there is no mapping
+	 */
+	public @Nullable String mapFieldName(String owner, String name, @Nullable String desc, int fromNs, int toNs) {
+		return mapMemberName(owner, name, desc, fromNs, toNs, 0);
+	}
+
+	/**
+	 * Map a method name between namespaces.
+	 *
+	 * @param owner internal name of the method owner in {@code fromNs}
+	 * @param desc method descriptor in {@code fromNs}, null to match any
+	 * @return the mapped name or null if there is no mapping
+	 */
+	public @Nullable String mapMethodName(String owner, String name, @Nullable String desc, int fromNs, int toNs) {
+		return mapMemberName(owner, name, desc, fromNs, toNs, 2);
+	}
+
+	private @Nullable String mapMemberName(String owner, String name, @Nullable String desc, int fromNs, int toNs, int kind) {
+		if (fromNs < 0 || toNs < 0) return null;
+
+		int cls = findClass(findString(owner), fromNs);
+		if (cls < 0) return null;
+
+		int nameId = findString(name);
+		if (nameId < 0) return null;
+
+		int descId = desc != null ? findString(desc) : ABSENT;
+		int classPos = getClassPos(cls) + nsCount * 4 + kind * 4;
+		int start = buf.getInt(classPos);
+		int end = buf.getInt(classPos + 4);
+		int recordSize = nsCount * 8;
+		int memberPos = (kind == 0 ? fieldsPos : methodsPos) + start * recordSize;
+
+		for (int i = start; i < end; i++, memberPos += recordSize) {
+			if (buf.getInt(memberPos + fromNs * 4) != nameId) continue;
+
+			if (desc != null) {
+				int memberDesc = buf.getInt(memberPos + (nsCount + fromNs) * 4);
+				if (memberDesc != ABSENT && memberDesc != descId) continue;
+			}
+
+			int ret = buf.getInt(memberPos + toNs * 4);
+
+			return ret != ABSENT ? getString0(ret) : null;
+		}
+
+		return null;
+	}
+
+	private int getClassPos(int cls) {
+		return classesPos + cls * (nsCount + 4) * 4;
+	}
+
+	private int findClass(int nameId, int ns) {
+		if (nameId < 0) return -1;
+
+		int indexPos = buf.getInt(classIndexPos + ns * 4);
+		int low = 0;
+		int high = buf.getInt(indexPos) - 1;
+		indexPos += 4;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cls = buf.getInt(indexPos + mid * 4);
+			int cmp = Integer.compare(buf.getInt(getClassPos(cls) + ns * 4), nameId);
+
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return cls;
+			}
+		}
+
+		return -1;
+	}
+
+	private int findString(String str) {
+		int low = 0;
+		int high = stringCount - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compareString(mid, str);
+
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+
+		return UNKNOWN;
+	}
+
+	private int compareString(int id, String str) {
+		int start = stringDataPos + buf.getInt(stringOffsetsPos + id * 4);
+		int len = stringDataPos + buf.getInt(stringOffsetsPos + id * 4 + 4) - start;
+		int strLen = str.length();
+
+		// fast path for ascii strings, which compare the same as their chars
+		for (int i = 0; i < strLen; i++) {
+			char c = str.charAt(i);
+			if (c >= 0x80) return compareUtf8(start, len, str.getBytes(StandardCharsets.UTF_8));
+			if (i >= len) return -1;
+
+			int cmp = (buf.get(start + i) & 0xff) - c;
+			if (cmp != 0) return cmp;
+		}
+
+		return len - strLen;
+	}
+
+	private int compareUtf8(int start, int len, byte[] str) {
+		int minLen = Math.min(len, str.length);
+
+		for (int i = 0; i < minLen; i++) {
+			int cmp = (buf.get(start + i) & 0xff) - (str[i] & 0xff);
+			if (cmp != 0) return cmp;
+		}
+
+		return len - str.length;
+	}
+
+	private @Nullable String getStringOrNull(int id) {
+		return id != ABSENT ? getString0(id) : null;
+	}
+
+	private String getString0(int id) {
+		int start = stringDataPos + buf.getInt(stringOffsetsPos + id * 4);
+		int len = stringDataPos + buf.getInt(stringOffsetsPos + id * 4 + 4) - start;
+		char[] chars = new char[len];
+
+		for (int i = 0; i < len; i++) {
+			byte b = buf.get(start + i);
+
+			if (b < 0) { // non-ascii, decode properly
+				byte[] bytes = new byte[len];
+
+				for (int j = 0; j < len; j++) {
+					bytes[j] = buf.get(start + j);
+				}
+
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			chars[i] = (char) b;
+		}
+
+		return new String(chars);
+	}
+
+	/**
+	 * Create a table from a mapping tree.
+	 *
+	 * @param tree the mappings to store
+	 * @param namespaces namespaces to store, in the order of the resulting namespace ids
+	 * @return the serialized table
+	 */
+	public static byte[] write(MappingTreeView tree, List<String> namespaces) {
+		int nsCount = namespaces.size();
+		int[] nsIds = new int[nsCount];
+
+		for (int i = 0; i < nsCount; i++) {
+			nsIds[i] = tree.getNamespaceId(namespaces.get(i));
+			if (nsIds[i] == MappingTreeView.NULL_NAMESPACE_ID) throw new IllegalArgumentException("missing namespace "+namespaces.get(i));
+		}
+
+		// gather and sort all strings to assign ids in string order
+
+		Map<String, Integer> stringIds = new HashMap<>();
+
+		for (String ns : namespaces) {
+			stringIds.put(ns, 0);
+		}
+
+		List<String[]> classes = new ArrayList<>(tree.getClasses().size());
+		List<String[]> fields = new ArrayList<>();
+		List<String[]> methods = new ArrayList<>();
+		int[] memberRanges = new int[tree.getClasses().size() * 4];
+
+		for (MappingTreeView.ClassMappingView cls : tree.getClasses()) {
+			String[] names = new String[nsCount];
+
+			for (int i = 0; i < nsCount; i++) {
+				names[i] = cls.getName(nsIds[i]);
+			}
+
+			int idx = classes.size();
+			classes.add(names);
+			memberRanges[idx * 4] = fields.size();
+
+			for (MappingTreeView.FieldMappingView field : cls.getFields()) {
+				fields.add(getMemberStrings(field, nsIds));
+			}
+
+			memberRanges[idx * 4 + 1] = fields.size();
+			memberRanges[idx * 4 + 2] = methods.size();
+
+			for (MappingTreeView.MethodMappingView method : cls.getMethods()) {
+				methods.add(getMemberStrings(method, nsIds));
+			}
+
+			memberRanges[idx * 4 + 3] = methods.size();
+		}
+
+		for (List<String[]> entries : Arrays.asList(classes, fields, methods)) {
+			for (String[] strings : entries) {
+				for (String s : strings) {
+					if (s != null) stringIds.put(s, 0);
+				}
+			}
+		}
+
+		byte[][] strings = new byte[stringIds.size()][];
+		int stringIdx = 0;
+
+		for (String s : stringIds.keySet()) {
+			strings[stringIdx++] = s.getBytes(StandardCharsets.UTF_8);
+		}
+
+		Arrays.sort(strings, MappingTable::compareBytes);
+		int stringDataSize = 0;
+
+		for (int i = 0; i < strings.length; i++) {
+			stringIds.put(new String(strings[i], StandardCharsets.UTF_8), i);
+			stringDataSize += strings[i].length;
+		}
+
+		// lay out the sections
+
+		int stringOffsetsPos = HEADER_SIZE;
+		int stringDataPos = stringOffsetsPos + (strings.length + 1) * 4;
+		int nsNamesPos = align(stringDataPos + stringDataSize);
+		int classesPos = nsNamesPos + nsCount * 4;
+		int classIndexPos = classesPos + classes.size() * (nsCount + 4) * 4;
+		int fieldsPos = classIndexPos + nsCount * 4 + nsCount * (classes.size() + 1) * 4;
+		int methodsPos = fieldsPos + fields.size() * nsCount * 8;
+		int size = methodsPos + methods.size() * nsCount * 8;
+
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		buf.putInt(MAGIC);
+		buf.putInt(nsCount);
+		buf.putInt(strings.length);
+		buf.putInt(classes.size());
+		buf.putInt(fields.size());
+		buf.putInt(methods.size());
+		buf.putInt(stringOffsetsPos);
+		buf.putInt(stringDataPos);
+		buf.putInt(nsNamesPos);
+		buf.putInt(classesPos);
+		buf.putInt(classIndexPos);
+		buf.putInt(fieldsPos);
+		buf.putInt(methodsPos);
+
+		int offset = 0;
+
+		for (byte[] s : strings) {
+			buf.putInt(offset);
+			offset += s.length;
+		}
+
+		buf.putInt(offset);
+
+		for (byte[] s : strings) {
+			buf.put(s);
+		}
+
+		buf.position(nsNamesPos);
+
+		for (String ns : namespaces) {
+			buf.putInt(stringIds.get(ns));
+		}
+
+		for (int i = 0; i < classes.size(); i++) {
+			putIds(buf, classes.get(i), stringIds);
+
+			for (int j = 0; j < 4; j++) {
+				buf.putInt(memberRanges[i * 4 + j]);
+			}
+		}
+
+		int indexPos = classIndexPos + nsCount * 4;
+
+		for (int ns = 0; ns < nsCount; ns++) {
+			final int nsIdx = ns;
+			List<Integer> index = new ArrayList<>(classes.size());
+
+			for (int i = 0; i < classes.size(); i++) {
+				if (classes.get(i)[ns] != null) index.add(i);
+			}
+
+			index.sort(Comparator.comparingInt(cls -> stringIds.get(classes.get(cls)[nsIdx])));
+
+			buf.putInt(classIndexPos + ns * 4, indexPos);
+			buf.position(indexPos);
+			buf.putInt(index.size());
+
+			for (int cls : index) {
+				buf.putInt(cls);
+			}
+
+			indexPos = buf.position();
+		}
+
+		buf.position(fieldsPos);
+
+		for (String[] field : fields) {
+			putIds(buf, field, stringIds);
+		}
+
+		for (String[] method : methods) {
+			putIds(buf, method, stringIds);
+		}
+
+		assert buf.position() == size;
+
+		return buf.array();
+	}
+
+	private static String[] getMemberStrings(MappingTreeView.MemberMappingView member, int[] nsIds) {
+		String[] ret = new String[nsIds.length * 2];
+
+		for (int i = 0; i < nsIds.length; i++) {
+			ret[i] = member.getName(nsIds[i]);
+			ret[nsIds.length + i] = member.getDesc(nsIds[i]);
+		}
+
+		return ret;
+	}
+
+	private static void putIds(ByteBuffer buf, String[] strings, Map<String, Integer> stringIds) {
+		for (String s : strings) {
+			buf.putInt(s != null ? stringIds.get(s) : ABSENT);
+		}
+	}
+
+	private static int align(int pos) {
+		return (pos + 3) & ~3;
+	}
+
+	private static int compareBytes(byte[] a, byte[] b) {
+		int minLen = Math.min(a.length, b.length);
+
+		for (int i = 0; i < minLen; i++) {
+			int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+			if (cmp != 0) return cmp;
+		}
+
+		return a.length - b.length;
+	}
+}
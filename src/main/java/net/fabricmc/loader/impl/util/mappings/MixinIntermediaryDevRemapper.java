@@ -17,57 +17,46 @@
 package net.fabricmc.loader.impl.util.mappings;
 
 import java.util.ArrayDeque;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Queue;
-import java.util.Set;
 
 import org.spongepowered.asm.mixin.transformer.ClassInfo;
 
-import net.fabricmc.mappingio.tree.MappingTree;
-
 public class MixinIntermediaryDevRemapper extends MixinRemapper {
-	private static final String ambiguousName = "<ambiguous>"; // dummy value for ambiguous mappings - needs querying with additional owner and/or desc info
-
-	private final Set<String> allPossibleClassNames = new HashSet<>();
-	private final Map<String, String> nameFieldLookup = new HashMap<>();
-	private final Map<String, String> nameMethodLookup = new HashMap<>();
-	private final Map<String, String> nameDescFieldLookup = new HashMap<>();
-	private final Map<String, String> nameDescMethodLookup = new HashMap<>();
+	private volatile MemberLookup fieldLookup;
+	private volatile MemberLookup methodLookup;
 
-	public MixinIntermediaryDevRemapper(MappingTree mappings, String from, String to) {
+	public MixinIntermediaryDevRemapper(MappingTable mappings, String from, String to) {
 		super(mappings, mappings.getNamespaceId(from), mappings.getNamespaceId(to));
+	}
 
-		for (MappingTree.ClassMapping classDef : mappings.getClasses()) {
-			allPossibleClassNames.add(classDef.getName(from));
-			allPossibleClassNames.add(classDef.getName(to));
+	private MemberLookup getFieldLookup() {
+		MemberLookup ret = fieldLookup;
 
-			putMemberInLookup(fromId, toId, classDef.getFields(), nameFieldLookup, nameDescFieldLookup);
-			putMemberInLookup(fromId, toId, classDef.getMethods(), nameMethodLookup, nameDescMethodLookup);
+		if (ret == null) {
+			synchronized (this) {
+				ret = fieldLookup;
+				if (ret == null) fieldLookup = ret = new MemberLookup(false);
+			}
 		}
-	}
 
-	private <T extends MappingTree.MemberMapping> void putMemberInLookup(int from, int to, Collection<T> descriptored, Map<String, String> nameMap, Map<String, String> nameDescMap) {
-		for (T field : descriptored) {
-			String nameFrom = field.getName(from);
-			String descFrom = field.getDesc(from);
-			String nameTo = field.getName(to);
+		return ret;
+	}
 
-			String prev = nameMap.putIfAbsent(nameFrom, nameTo);
+	private MemberLookup getMethodLookup() {
+		MemberLookup ret = methodLookup;
 
-			if (prev != null && prev != ambiguousName && !prev.equals(nameTo)) {
-				nameDescMap.put(nameFrom, ambiguousName);
+		if (ret == null) {
+			synchronized (this) {
+				ret = methodLookup;
+				if (ret == null) methodLookup = ret = new MemberLookup(true);
 			}
+		}
 
-			String key = getNameDescKey(nameFrom, descFrom);
-			prev = nameDescMap.putIfAbsent(key, nameTo);
+		return ret;
+	}
 
-			if (prev != null && prev != ambiguousName && !prev.equals(nameTo)) {
-				nameDescMap.put(key, ambiguousName);
-			}
-		}
+	private boolean isPossibleClassName(String name) {
+		return mappings.hasClass(name, fromId) || mappings.hasClass(name, toId);
 	}
 
 	private void throwAmbiguousLookup(String type, String name, String desc) {
@@ -99,22 +88,16 @@ public class MixinIntermediaryDevRemapper extends MixinRemapper {
 	@Override
 	public String mapMethodName(String owner, String name, String desc) {
 		// handle unambiguous values early
-		if (owner == null || allPossibleClassNames.contains(owner)) {
-			String newName;
+		if (owner == null || isPossibleClassName(owner)) {
+			int newName = getMethodLookup().get(name, desc, desc == null);
 
-			if (desc == null) {
-				newName = nameMethodLookup.get(name);
-			} else {
-				newName = nameDescMethodLookup.get(getNameDescKey(name, desc));
-			}
-
-			if (newName != null) {
-				if (newName == ambiguousName) {
+			if (newName != NameLookupTable.MISSING) {
+				if (newName == NameLookupTable.AMBIGUOUS) {
 					if (owner == null) {
 						throwAmbiguousLookup("method", name, desc);
 					}
 				} else {
-					return newName;
+					return mappings.getString(newName);
 				}
 			} else if (owner == null) {
 				return name;
@@ -127,8 +110,8 @@ public class MixinIntermediaryDevRemapper extends MixinRemapper {
 				if (!unmapOwner.equals(owner) || !unmapDesc.equals(desc)) {
 					return mapMethodName(unmapOwner, name, unmapDesc);
 				} else {
-					// take advantage of the fact allPossibleClassNames
-					// and nameDescLookup cover all sets; if none are present,
+					// take advantage of the fact the class index
+					// and name+desc lookup cover all sets; if none are present,
 					// we don't have a mapping for it.
 					return name;
 				}
@@ -178,16 +161,16 @@ public class MixinIntermediaryDevRemapper extends MixinRemapper {
 	@Override
 	public String mapFieldName(String owner, String name, String desc) {
 		// handle unambiguous values early
-		if (owner == null || allPossibleClassNames.contains(owner)) {
-			String newName = nameDescFieldLookup.get(getNameDescKey(name, desc));
+		if (owner == null || isPossibleClassName(owner)) {
+			int newName = getFieldLookup().get(name, desc, false);
 
-			if (newName != null) {
-				if (newName == ambiguousName) {
+			if (newName != NameLookupTable.MISSING) {
+				if (newName == NameLookupTable.AMBIGUOUS) {
 					if (owner == null) {
 						throwAmbiguousLookup("field", name, desc);
 					}
 				} else {
-					return newName;
+					return mappings.getString(newName);
 				}
 			} else if (owner == null) {
 				return name;
@@ -200,8 +183,8 @@ public class MixinIntermediaryDevRemapper extends MixinRemapper {
 				if (!unmapOwner.equals(owner) || !unmapDesc.equals(desc)) {
 					return mapFieldName(unmapOwner, name, unmapDesc);
 				} else {
-					// take advantage of the fact allPossibleClassNames
-					// and nameDescLookup cover all sets; if none are present,
+					// take advantage of the fact the class index
+					// and name+desc lookup cover all sets; if none are present,
 					// we don't have a mapping for it.
 					return name;
 				}
@@ -228,7 +211,47 @@ public class MixinIntermediaryDevRemapper extends MixinRemapper {
 		return name;
 	}
 
-	private static String getNameDescKey(String name, String descriptor) {
-		return name+ ";;" + descriptor;
+	/**
+	 * Lookup from source namespace member names, optionally with descriptor, to target namespace names.
+	 *
+	 * <p>The tables operate on the mapping table's string pool ids and are built on first use, as most dev launches
+	 * only remap a small number of refmap entries, if any.
+	 */
+	private final class MemberLookup {
+		private final NameLookupTable byName;
+		private final NameLookupTable byNameDesc;
+
+		MemberLookup(boolean methods) {
+			int count = methods ? mappings.getMethodCount() : mappings.getFieldCount();
+			byName = new NameLookupTable(count);
+			byNameDesc = new NameLookupTable(count);
+
+			for (int i = 0; i < count; i++) {
+				int nameFrom = mappings.getMemberNameId(methods, i, fromId);
+				if (nameFrom < 0) continue;
+
+				int descFrom = mappings.getMemberDescId(methods, i, fromId);
+				int nameTo = mappings.getMemberNameId(methods, i, toId);
+
+				// the name-only lookup keeps the first mapping, ambiguity is only tracked with the descriptor
+				byName.putIfAbsent(nameFrom, nameTo);
+				byNameDesc.putOrMarkAmbiguous(NameLookupTable.key(nameFrom, descFrom), nameTo);
+			}
+		}
+
+		/**
+		 * @return the target name's string id, {@link NameLookupTable#MISSING} or {@link NameLookupTable#AMBIGUOUS}
+		 */
+		int get(String name, String desc, boolean ignoreDesc) {
+			int nameId = mappings.getStringId(name);
+			if (nameId < 0) return NameLookupTable.MISSING;
+
+			if (ignoreDesc) return byName.get(nameId);
+
+			int descId = desc != null ? mappings.getStringId(desc) : -1;
+			if (desc != null && descId < 0) return NameLookupTable.MISSING;
+
+			return byNameDesc.get(NameLookupTable.key(nameId, descId));
+		}
 	}
 }
@@ -18,14 +18,12 @@ package net.fabricmc.loader.impl.util.mappings;
 
 import org.spongepowered.asm.mixin.extensibility.IRemapper;
 
-import net.fabricmc.mappingio.tree.MappingTree;
-
 public class MixinRemapper implements IRemapper {
-	protected final MappingTree mappings;
+	protected final MappingTable mappings;
 	protected final int fromId;
 	protected final int toId;
 
-	public MixinRemapper(MappingTree mappings, int fromId, int toId) {
+	public MixinRemapper(MappingTable mappings, int fromId, int toId) {
 		this.mappings = mappings;
 		this.fromId = fromId;
 		this.toId = toId;
@@ -33,14 +31,14 @@ public class MixinRemapper implements IRemapper {
 
 	@Override
 	public String mapMethodName(String owner, String name, String desc) {
-		final MappingTree.MethodMapping method = mappings.getMethod(owner, name, desc, fromId);
-		return method == null ? name : method.getName(toId);
+		final String ret = mappings.mapMethodName(owner, name, desc, fromId, toId);
+		return ret == null ? name : ret;
 	}
 
 	@Override
 	public String mapFieldName(String owner, String name, String desc) {
-		final MappingTree.FieldMapping field = mappings.getField(owner, name, desc, fromId);
-		return field == null ? name : field.getName(toId);
+		final String ret = mappings.mapFieldName(owner, name, desc, fromId, toId);
+		return ret == null ? name : ret;
 	}
 
 	@Override
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util.mappings;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from a non-negative long key to an int value, used for mapping string pool ids
+ * without boxing or building intermediate strings.
+ */
+final class NameLookupTable {
+	static final int MISSING = -1;
+	static final int AMBIGUOUS = -2;
+
+	private static final long EMPTY = -1;
+
+	private final long[] keys;
+	private final int[] values;
+	private final int shift;
+
+	NameLookupTable(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1; // load factor <= 0.5
+
+		keys = new long[capacity];
+		values = new int[capacity];
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		Arrays.fill(keys, EMPTY);
+	}
+
+	static long key(int nameId, int descId) {
+		return (long) nameId << 32 | descId & 0xffffffffL;
+	}
+
+	/**
+	 * @return the value for key or {@link #MISSING}
+	 */
+	int get(long key) {
+		int mask = keys.length - 1;
+
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == key) return values[i];
+			if (k == EMPTY) return MISSING;
+		}
+	}
+
+	/**
+	 * Store value if key isn't present yet, a missing value is ignored.
+	 */
+	void putIfAbsent(long key, int value) {
+		if (value < 0) return;
+
+		int i = find(key);
+		if (keys[i] != EMPTY) return;
+
+		keys[i] = key;
+		values[i] = value;
+	}
+
+	/**
+	 * Store value if key isn't present yet, or mark it as {@link #AMBIGUOUS} if it was present with a different value.
+	 */
+	void putOrMarkAmbiguous(long key, int value) {
+		int i = find(key);
+
+		if (keys[i] == EMPTY) {
+			if (value < 0) return;
+
+			keys[i] = key;
+			values[i] = value;
+		} else if (values[i] != value) {
+			values[i] = AMBIGUOUS;
+		}
+	}
+
+	private int find(long key) {
+		int mask = keys.length - 1;
+		int i = slot(key);
+
+		while (keys[i] != EMPTY && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+
+		return i;
+	}
+
+	private int slot(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+}
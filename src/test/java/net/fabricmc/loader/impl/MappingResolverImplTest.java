@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.loader.impl.util.mappings.MappingTable;
+import net.fabricmc.mappingio.format.tiny.Tiny2FileReader;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+public class MappingResolverImplTest {
+	private static final String MAPPINGS = "tiny\t2\t0\tofficial\tintermediary\tnamed\n"
+			+ "c\ta\tnet/minecraft/class_1\tnet/minecraft/Block\n"
+			+ "\tf\tI\ta\tfield_1\thardness\n"
+			+ "\tm\t(La;)V\ta\tmethod_1\tcopy\n"
+			+ "c\tb$c\tnet/minecraft/class_2$class_3\tnet/minecraft/Outer$Inner\n";
+
+	private MappingResolverImpl resolver;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		MemoryMappingTree tree = new MemoryMappingTree();
+		Tiny2FileReader.read(new StringReader(MAPPINGS), tree);
+		MappingTable table = MappingTable.read(ByteBuffer.wrap(MappingTable.write(tree, Arrays.asList("official", "intermediary", "named"))));
+		resolver = new MappingResolverImpl(table, "intermediary");
+	}
+
+	/*
+	 * Test that repeated (memoized) lookups keep returning the same results
+	 */
+	@Test
+	public void testSingleLookups() {
+		for (int i = 0; i < 2; i++) {
+			Assertions.assertEquals("net.minecraft.class_1", resolver.mapClassName("named", "net.minecraft.Block"));
+			Assertions.assertEquals("net.minecraft.class_2$class_3", resolver.mapClassName("official", "b$c"));
+			Assertions.assertEquals("java.lang.Object", resolver.mapClassName("named", "java.lang.Object"));
+			Assertions.assertEquals("a", resolver.unmapClassName("official", "net.minecraft.class_1"));
+			Assertions.assertEquals("field_1", resolver.mapFieldName("named", "net.minecraft.Block", "hardness", "I"));
+			Assertions.assertEquals("method_1", resolver.mapMethodName("official", "a", "a", "(La;)V"));
+			Assertions.assertEquals("unknown", resolver.mapMethodName("official", "a", "unknown", "()V"));
+			Assertions.assertEquals("a", resolver.mapClassName("missing", "a"));
+		}
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> resolver.mapClassName("named", "net/minecraft/Block"));
+	}
+
+	/*
+	 * Test that the bulk methods match the single lookups
+	 */
+	@Test
+	public void testBulkLookups() {
+		Assertions.assertArrayEquals(new String[] { "net.minecraft.class_1", "java.lang.Object" },
+				resolver.mapClassNames("named", "net.minecraft.Block", "java.lang.Object"));
+		Assertions.assertArrayEquals(new String[] { "net.minecraft.Block", "net.minecraft.Outer$Inner" },
+				resolver.unmapClassNames("named", "net.minecraft.class_1", "net.minecraft.class_2$class_3"));
+		Assertions.assertArrayEquals(new String[] { "field_1", "hardness" },
+				resolver.mapFieldNames("named", new String[] { "net.minecraft.Block", "net.minecraft.Block" }, new String[] { "hardness", "hardness" }, new String[] { "I", "J" }));
+		Assertions.assertArrayEquals(new String[] { "method_1" },
+				resolver.mapMethodNames("official", new String[] { "a" }, new String[] { "a" }, new String[] { "(La;)V" }));
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> resolver.mapMethodNames("official", new String[] { "a" }, new String[0], new String[] { "()V" }));
+	}
+}
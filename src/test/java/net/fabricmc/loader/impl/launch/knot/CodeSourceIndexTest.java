@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CodeSourceIndexTest {
+	@TempDir
+	Path tempDir;
+
+	/*
+	 * Test that earlier code sources take precedence and directories are probed in order
+	 */
+	@Test
+	public void testOrder() throws IOException {
+		Path jarA = createJar("a.jar", null, "pkg/A.class", "pkg/Shared.class");
+		Path dir = Files.createDirectories(tempDir.resolve("dir"));
+		Files.createDirectories(dir.resolve("pkg"));
+		Files.write(dir.resolve("pkg/Shared.class"), new byte[1]);
+		Files.write(dir.resolve("pkg/Dir.class"), new byte[1]);
+		Path jarB = createJar("b.jar", null, "pkg/Shared.class", "pkg/Dir.class", "pkg/B.class");
+
+		CodeSourceIndex index = new CodeSourceIndex();
+		index.add(jarA);
+		index.add(dir);
+		index.add(jarB);
+
+		Assertions.assertEquals(jarA, index.find("pkg/A.class").codeSource);
+		Assertions.assertEquals(jarA, index.find("pkg/Shared.class").codeSource);
+		Assertions.assertEquals(dir, index.find("pkg/Dir.class").codeSource);
+		Assertions.assertEquals(jarB, index.find("pkg/B.class").codeSource);
+		Assertions.assertSame(CodeSourceIndex.MISSING, index.find("pkg/C.class"));
+	}
+
+	/*
+	 * Test reading class files through the index
+	 */
+	@Test
+	public void testRead() throws IOException {
+		Path jar = createJar("a.jar", null, "pkg/A.class");
+		Path dir = Files.createDirectories(tempDir.resolve("dir"));
+		Files.createDirectories(dir.resolve("pkg"));
+		Files.write(dir.resolve("pkg/B.class"), new byte[] { 1, 2 });
+
+		CodeSourceIndex index = new CodeSourceIndex();
+		index.add(jar);
+		index.add(dir);
+
+		CodeSourceIndex.Entry entry = index.find("pkg/A.class");
+		Assertions.assertTrue(entry.isPooledZip());
+		Assertions.assertArrayEquals(new byte[] { 0 }, entry.readClass("pkg/A.class"));
+
+		ByteBuffer buffer = entry.readClass("pkg/A.class", null);
+		Assertions.assertTrue(buffer.isDirect());
+		Assertions.assertEquals(1, buffer.remaining());
+		Assertions.assertSame(buffer, entry.readClass("pkg/A.class", buffer));
+
+		Assertions.assertArrayEquals(new byte[] { 1, 2 }, index.find("pkg/B.class").readClass("pkg/B.class"));
+	}
+
+	/*
+	 * Test that jars which can't be indexed exactly make lookups inconclusive once they'd be consulted
+	 */
+	@Test
+	public void testUnindexed() throws IOException {
+		Path jarA = createJar("a.jar", null, "pkg/A.class");
+		Path multiRelease = createJar("mr.jar", "Multi-Release", "pkg/B.class");
+		Path jarC = createJar("c.jar", null, "pkg/C.class");
+
+		CodeSourceIndex index = new CodeSourceIndex();
+		index.add(jarA);
+		index.add(multiRelease);
+		index.add(jarC);
+
+		Assertions.assertEquals(jarA, index.find("pkg/A.class").codeSource);
+		Assertions.assertNull(index.find("pkg/B.class"));
+		Assertions.assertNull(index.find("pkg/C.class"));
+		Assertions.assertNull(index.find("pkg/D.class"));
+	}
+
+	private Path createJar(String name, String trueAttribute, String... entries) throws IOException {
+		Path ret = tempDir.resolve(name);
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		if (trueAttribute != null) manifest.getMainAttributes().putValue(trueAttribute, "true");
+
+		try (OutputStream os = Files.newOutputStream(ret);
+				JarOutputStream jos = new JarOutputStream(os, manifest)) {
+			for (String entry : entries) {
+				jos.putNextEntry(new ZipEntry(entry));
+				jos.write(0);
+				jos.closeEntry();
+			}
+		}
+
+		return ret;
+	}
+}
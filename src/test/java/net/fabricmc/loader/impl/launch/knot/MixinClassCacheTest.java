@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.launch.knot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+
+public class MixinClassCacheTest {
+	/*
+	 * Test that hits are served as copies without invoking the source again
+	 */
+	@Test
+	public void testHits() throws Exception {
+		AtomicInteger reads = new AtomicInteger();
+		MixinClassCache.BytesSource source = (name, runTransformers) -> {
+			reads.incrementAndGet();
+			return createClass(name);
+		};
+		MixinClassCache cache = new MixinClassCache(1 << 20);
+
+		byte[] bytes = cache.getBytes("a/A", true, source);
+		bytes[0] = 0;
+		Assertions.assertNotEquals(0, cache.getBytes("a/A", true, source)[0]);
+		cache.getBytes("a/A", false, source);
+		Assertions.assertEquals(2, reads.get());
+		Assertions.assertEquals(1, cache.getByteHits());
+
+		ClassNode node = cache.getNode("a/A", true, 0, source);
+		node.methods.clear();
+		ClassNode copy = cache.getNode("a/A", true, 0, source);
+		Assertions.assertEquals(1, copy.methods.size());
+		Assertions.assertNotSame(copy.methods.get(0).instructions.getFirst(), cache.getNode("a/A", true, 0, source).methods.get(0).instructions.getFirst());
+		Assertions.assertEquals(2, cache.getNodeHits());
+		Assertions.assertEquals(2, reads.get());
+	}
+
+	/*
+	 * Test that the least recently used entries get evicted once the size bound is exceeded
+	 */
+	@Test
+	public void testEviction() throws Exception {
+		AtomicInteger reads = new AtomicInteger();
+		MixinClassCache.BytesSource source = (name, runTransformers) -> {
+			reads.incrementAndGet();
+			return createClass(name);
+		};
+		int size = createClass("a/A").length;
+		MixinClassCache cache = new MixinClassCache(size * 2);
+
+		cache.getBytes("a/A", true, source);
+		cache.getBytes("a/B", true, source);
+		cache.getBytes("a/A", true, source);
+		cache.getBytes("a/C", true, source); // evicts a/B
+		Assertions.assertTrue(cache.getWeight() <= size * 2);
+
+		cache.getBytes("a/A", true, source);
+		Assertions.assertEquals(3, reads.get());
+		cache.getBytes("a/B", true, source);
+		Assertions.assertEquals(4, reads.get());
+	}
+
+	private static byte[] createClass(String name) {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.transformer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import net.fabricmc.loader.impl.FabricLoaderImpl;
+
+public class ConstantPoolScannerTest {
+	private static final String ENV_TYPE_DESC = "Lnet/fabricmc/api/EnvType;";
+
+	/*
+	 * Test that classes without environment annotations are recognized from the constant pool alone
+	 */
+	@Test
+	public void testContainsUtf8() {
+		ConstantPoolScanner plain = new ConstantPoolScanner(createClass(false));
+		ConstantPoolScanner annotated = new ConstantPoolScanner(createClass(true));
+
+		Assertions.assertFalse(plain.containsUtf8(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR, EnvironmentStrippingData.ENVIRONMENT_INTERFACES_DESCRIPTOR));
+		Assertions.assertTrue(annotated.containsUtf8(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR));
+		Assertions.assertTrue(annotated.containsUtf8("unknown", "fïeld"));
+		Assertions.assertFalse(annotated.containsUtf8("fïel"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ConstantPoolScanner(new byte[16]));
+	}
+
+	/*
+	 * Test that the scanned annotations yield the same stripping data as a full ASM pass
+	 */
+	@Test
+	public void testAcceptAnnotations() {
+		byte[] bytes = createClass(true);
+
+		EnvironmentStrippingData scanned = new EnvironmentStrippingData(FabricLoaderImpl.ASM_VERSION, "SERVER");
+		new ConstantPoolScanner(bytes).acceptAnnotations(scanned);
+		EnvironmentStrippingData read = new EnvironmentStrippingData(FabricLoaderImpl.ASM_VERSION, "SERVER");
+		new ClassReader(bytes).accept(read, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+
+		Assertions.assertFalse(scanned.stripEntireClass());
+		Assertions.assertEquals(Collections.singleton("java/lang/Runnable"), new HashSet<>(scanned.getStripInterfaces()));
+		Assertions.assertEquals(Collections.singleton("fïeldJ"), new HashSet<>(scanned.getStripFields()));
+		Assertions.assertEquals(new HashSet<>(Arrays.asList("clientOnly()V", "<init>()V")), new HashSet<>(scanned.getStripMethods()));
+
+		Assertions.assertEquals(new HashSet<>(read.getStripInterfaces()), new HashSet<>(scanned.getStripInterfaces()));
+		Assertions.assertEquals(new HashSet<>(read.getStripFields()), new HashSet<>(scanned.getStripFields()));
+		Assertions.assertEquals(new HashSet<>(read.getStripMethods()), new HashSet<>(scanned.getStripMethods()));
+
+		EnvironmentStrippingData client = new EnvironmentStrippingData(FabricLoaderImpl.ASM_VERSION, "CLIENT");
+		new ConstantPoolScanner(bytes).acceptAnnotations(client);
+
+		Assertions.assertTrue(client.stripEntireClass());
+		Assertions.assertEquals(Collections.singleton("serverOnly()V"), new HashSet<>(client.getStripMethods()));
+	}
+
+	private static byte[] createClass(boolean annotated) {
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "test/Annotated", null, "java/lang/Object", new String[] { "java/lang/Runnable", "java/io/Serializable" });
+
+		if (annotated) {
+			AnnotationVisitor av = cw.visitAnnotation(EnvironmentStrippingData.ENVIRONMENT_INTERFACES_DESCRIPTOR, false).visitArray("value");
+			AnnotationVisitor itf = av.visitAnnotation(null, EnvironmentStrippingData.ENVIRONMENT_INTERFACE_DESCRIPTOR);
+			itf.visitEnum("value", ENV_TYPE_DESC, "CLIENT");
+			itf.visit("itf", Type.getObjectType("java/lang/Runnable"));
+			itf.visitEnd();
+			av.visitEnd();
+			cw.visitAnnotation(EnvironmentStrippingData.ENVIRONMENT_INTERFACES_DESCRIPTOR, false).visitEnd(); // no values
+			annotate(cw.visitAnnotation(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR, true), "SERVER");
+
+			AnnotationVisitor other = cw.visitAnnotation("Ltest/Other;", true); // ignored annotation with all kinds of values
+			other.visit("i", 5);
+			other.visit("l", 5L);
+			other.visit("d", 1.5);
+			other.visit("s", "str");
+			other.visit("z", true);
+			other.visit("a", new int[] { 1, 2 });
+			other.visitAnnotation("n", "Ltest/Nested;").visitEnd();
+			other.visitEnd();
+		}
+
+		FieldVisitor fv = cw.visitField(Opcodes.ACC_PUBLIC, "fïeld", "J", null, null);
+		if (annotated) annotate(fv.visitAnnotation(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR, true), "CLIENT");
+		fv.visitEnd();
+		cw.visitField(Opcodes.ACC_PUBLIC, "kept", "I", null, 3).visitEnd();
+
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		if (annotated) annotate(mv.visitAnnotation(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR, false), "CLIENT");
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "clientOnly", "()V", null, null);
+		if (annotated) annotate(mv.visitAnnotation(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR, true), "CLIENT");
+		mv.visitEnd();
+
+		mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "serverOnly", "()V", null, null);
+		if (annotated) annotate(mv.visitAnnotation(EnvironmentStrippingData.ENVIRONMENT_DESCRIPTOR, true), "SERVER");
+		mv.visitEnd();
+
+		cw.visitEnd();
+
+		return cw.toByteArray();
+	}
+
+	private static void annotate(AnnotationVisitor av, String env) {
+		av.visitEnum("value", ENV_TYPE_DESC, env);
+		av.visitEnd();
+	}
+}
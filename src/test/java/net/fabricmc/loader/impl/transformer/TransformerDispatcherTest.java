@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.transformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TransformerDispatcherTest {
+	/*
+	 * Test that each transformer only gets applied to its targets, in registration order
+	 */
+	@Test
+	public void testDispatch() {
+		List<String> calls = new ArrayList<>();
+		TransformerDispatcher dispatcher = new TransformerDispatcher(Arrays.asList(
+				new RecordingTransformer("exact", TransformerTargets.names("a.b.C", "x.Y"), calls),
+				new RecordingTransformer("package", TransformerTargets.prefixes("a.b.", "a.bc."), calls),
+				new RecordingTransformer("predicate", TransformerTargets.matching(name -> name.endsWith("Mixin")).or(TransformerTargets.names("x.Y")), calls),
+				new RecordingTransformer("all", TransformerTargets.all(), calls)));
+
+		dispatcher.transform("a.b.C", new byte[0]);
+		Assertions.assertEquals(Arrays.asList("exact a.b.C", "package a.b.C", "all a.b.C"), calls);
+
+		calls.clear();
+		dispatcher.transform("a.bc.FooMixin", new byte[0]);
+		Assertions.assertEquals(Arrays.asList("package a.bc.FooMixin", "predicate a.bc.FooMixin", "all a.bc.FooMixin"), calls);
+
+		calls.clear();
+		dispatcher.transform("x.Y", new byte[0]);
+		Assertions.assertEquals(Arrays.asList("exact x.Y", "predicate x.Y", "all x.Y"), calls);
+
+		calls.clear();
+		dispatcher.transform("a.Bc", new byte[0]);
+		Assertions.assertEquals(Collections.singletonList("all a.Bc"), calls);
+	}
+
+	/*
+	 * Test that classes without matching transformers are passed through as is
+	 */
+	@Test
+	public void testUntouched() {
+		List<String> calls = new ArrayList<>();
+		TransformerDispatcher dispatcher = new TransformerDispatcher(Collections.singletonList(
+				new RecordingTransformer("package", TransformerTargets.prefixes("a.b."), calls)));
+		byte[] bytes = new byte[1];
+
+		Assertions.assertSame(bytes, dispatcher.transform("a.c.D", bytes));
+		Assertions.assertSame(bytes, dispatcher.transform("a.b", bytes));
+		Assertions.assertTrue(calls.isEmpty());
+		Assertions.assertNotSame(bytes, dispatcher.transform("a.b.D", bytes));
+		Assertions.assertSame(bytes, new TransformerDispatcher(Collections.emptyList()).transform("a.b.D", bytes));
+	}
+
+	private static final class RecordingTransformer implements ClassTransformer {
+		private final String id;
+		private final TransformerTargets targets;
+		private final List<String> calls;
+
+		RecordingTransformer(String id, TransformerTargets targets, List<String> calls) {
+			this.id = id;
+			this.targets = targets;
+			this.calls = calls;
+		}
+
+		@Override
+		public TransformerTargets getTargets() {
+			return targets;
+		}
+
+		@Override
+		public byte[] transform(String name, byte[] bytes) {
+			calls.add(id + " " + name);
+
+			return bytes.clone();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util;
+
+import java.lang.reflect.Proxy;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DefaultLanguageAdapterTest {
+	/*
+	 * Test binding static and instance methods, including ones needing boxing and casts
+	 */
+	@Test
+	public void testLambda() throws ReflectiveOperationException {
+		IntSupplier supplier = DefaultLanguageAdapter.createLambda(IntSupplier.class, Target.class, Target.class.getDeclaredMethod("answer"), null);
+		Assertions.assertNotNull(supplier);
+		Assertions.assertFalse(Proxy.isProxyClass(supplier.getClass()));
+		Assertions.assertEquals(42, supplier.getAsInt());
+
+		@SuppressWarnings("unchecked")
+		Function<String, Integer> function = DefaultLanguageAdapter.createLambda(Function.class, Target.class, Target.class.getDeclaredMethod("length", String.class), new Target(3));
+		Assertions.assertNotNull(function);
+		Assertions.assertEquals(8, function.apply("hello"));
+	}
+
+	/*
+	 * Test that types without a single abstract method are left to the proxy
+	 */
+	@Test
+	public void testFallback() throws ReflectiveOperationException {
+		Assertions.assertNull(DefaultLanguageAdapter.createLambda(TwoMethods.class, Target.class, Target.class.getDeclaredMethod("answer"), null));
+	}
+
+	public interface TwoMethods {
+		int a();
+		int b();
+	}
+
+	public static final class Target {
+		private final int offset;
+
+		public Target(int offset) {
+			this.offset = offset;
+		}
+
+		public static int answer() {
+			return 42;
+		}
+
+		public int length(String s) {
+			return s.length() + offset;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.loader.impl.util.mappings;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.fabricmc.mappingio.format.tiny.Tiny2FileReader;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+public class MappingTableTest {
+	private static final String MAPPINGS = "tiny\t2\t0\tofficial\tintermediary\tnamed\n"
+			+ "c\ta\tnet/minecraft/class_1\tnet/minecraft/Block\n"
+			+ "\tf\tI\ta\tfield_1\thardness\n"
+			+ "\tm\t(La;)V\ta\tmethod_1\tcopy\n"
+			+ "\tm\t()V\ta\tmethod_2\ttick\n"
+			+ "c\tb\tnet/minecraft/class_2\tnet/minecraft/Blöck\n"
+			+ "c\tc$a\tnet/minecraft/class_3\t\n";
+
+	private MemoryMappingTree tree;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		tree = new MemoryMappingTree();
+		Tiny2FileReader.read(new StringReader(MAPPINGS), tree);
+	}
+
+	/*
+	 * Test that all namespace combinations map like the mapping tree
+	 */
+	@Test
+	public void testLookups() {
+		MappingTable table = MappingTable.read(ByteBuffer.wrap(MappingTable.write(tree, Arrays.asList("official", "intermediary", "named"))));
+		int official = table.getNamespaceId("official");
+		int intermediary = table.getNamespaceId("intermediary");
+		int named = table.getNamespaceId("named");
+
+		Assertions.assertEquals(Arrays.asList("official", "intermediary", "named"), table.getNamespaces());
+		Assertions.assertEquals(3, table.getClassCount());
+
+		Assertions.assertEquals("net/minecraft/class_1", table.mapClassName("a", official, intermediary));
+		Assertions.assertEquals("net/minecraft/Block", table.mapClassName("net/minecraft/class_1", intermediary, named));
+		Assertions.assertEquals("b", table.mapClassName("net/minecraft/Blöck", named, official));
+		Assertions.assertEquals("c$a", table.mapClassName("c$a", official, named));
+		Assertions.assertEquals("unknown", table.mapClassName("unknown", official, intermediary));
+		Assertions.assertNull(table.getClassName("unknown", official, intermediary));
+		Assertions.assertNull(table.getClassName("c$a", official, named));
+		Assertions.assertEquals("net/minecraft/class_3", table.getClassName("c$a", official, intermediary));
+
+		Assertions.assertEquals("hardness", table.mapFieldName("net/minecraft/class_1", "field_1", "I", intermediary, named));
+		Assertions.assertEquals("hardness", table.mapFieldName("net/minecraft/class_1", "field_1", null, intermediary, named));
+		Assertions.assertNull(table.mapFieldName("net/minecraft/class_1", "field_1", "J", intermediary, named));
+
+		Assertions.assertEquals("method_1", table.mapMethodName("a", "a", "(La;)V", official, intermediary));
+		Assertions.assertEquals("method_2", table.mapMethodName("a", "a", "()V", official, intermediary));
+		Assertions.assertEquals("a", table.mapMethodName("net/minecraft/Block", "copy", "(Lnet/minecraft/Block;)V", named, official));
+		Assertions.assertNull(table.mapMethodName("net/minecraft/Block", "copy", "(La;)V", named, official));
+		Assertions.assertNull(table.mapMethodName("b", "a", "()V", official, intermediary));
+
+		Assertions.assertEquals("(Lnet/minecraft/class_1;[Lnet/minecraft/class_2;Ljava/lang/String;)V", table.mapDesc("(La;[Lb;Ljava/lang/String;)V", official, intermediary));
+		Assertions.assertEquals("(IJ)Z", table.mapDesc("(IJ)Z", official, intermediary));
+	}
+
+	/*
+	 * Test iterating the stored entries
+	 */
+	@Test
+	public void testIteration() {
+		MappingTable table = MappingTable.read(ByteBuffer.wrap(MappingTable.write(tree, Arrays.asList("official", "intermediary", "named"))));
+
+		Assertions.assertEquals(1, table.getFieldCount());
+		Assertions.assertEquals(2, table.getMethodCount());
+		Assertions.assertEquals("net/minecraft/class_3", table.getClassName(2, 1));
+		Assertions.assertNull(table.getClassName(2, 2));
+		Assertions.assertEquals("I", table.getFieldDesc(0, 2));
+		Assertions.assertEquals("tick", table.getMethodName(1, 2));
+		Assertions.assertEquals("(Lnet/minecraft/Block;)V", table.getMethodDesc(0, 2));
+	}
+
+	/*
+	 * Test that only the requested namespaces are stored
+	 */
+	@Test
+	public void testNamespaceSubset() {
+		MappingTable table = MappingTable.read(ByteBuffer.wrap(MappingTable.write(tree, Arrays.asList("named", "intermediary"))));
+
+		Assertions.assertEquals(-1, table.getNamespaceId("official"));
+		Assertions.assertEquals("net/minecraft/class_2", table.mapClassName("net/minecraft/Blöck", 0, 1));
+		Assertions.assertEquals("field_1", table.mapFieldName("net/minecraft/Block", "hardness", "I", 0, 1));
+	}
+}